@@ -0,0 +1,43 @@
+package com.assetcompass.tracker.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asset.calculateCurrentValue with the column scales the database hands back
+ * (quantity scale 10, price scale 4) and with a small quantity that fits in a long.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AssetValueBenchmark {
+
+    private Asset stored;
+    private Asset whole;
+    private BigDecimal livePrice;
+
+    @Setup
+    public void setUp() {
+        stored = Asset.builder().quantity(new BigDecimal("1.5432000000")).build();
+        whole = Asset.builder().quantity(new BigDecimal("12")).build();
+        livePrice = new BigDecimal("231.4400");
+    }
+
+    @Benchmark
+    public BigDecimal storedScale() {
+        return stored.calculateCurrentValue(livePrice);
+    }
+
+    @Benchmark
+    public BigDecimal wholeQuantity() {
+        return whole.calculateCurrentValue(livePrice);
+    }
+}
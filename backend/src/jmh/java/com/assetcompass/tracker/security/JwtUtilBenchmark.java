@@ -0,0 +1,53 @@
+package com.assetcompass.tracker.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue (login) and token checks (every authenticated request).
+ *   validateCached - same session again: SHA-256 + map hit in the verified-token cache
+ *   parseAndVerify - a token we have not seen: full parse + HMAC check
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtUtil = new JwtUtil();
+        // Normally injected from app.jwt.verified-cache-size
+        Field cacheSize = JwtUtil.class.getDeclaredField("verifiedCacheSize");
+        cacheSize.setAccessible(true);
+        cacheSize.setInt(jwtUtil, 10_000);
+
+        token = jwtUtil.generateToken("bench@assetcompass.dev");
+        jwtUtil.validateAndExtractUsername(token); // Warm the verified-token cache
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("bench@assetcompass.dev");
+    }
+
+    @Benchmark
+    public String validateCached() {
+        return jwtUtil.validateAndExtractUsername(token);
+    }
+
+    @Benchmark
+    public String parseAndVerify() {
+        return jwtUtil.extractUsername(token);
+    }
+}
@@ -0,0 +1,90 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.models.Asset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Net worth for one user, three ways:
+ *   perAssetLoop   - the BigDecimal loop GET /api/me originally ran over every asset
+ *   buildAggregate - what a PortfolioValuationService cache miss costs (one pass + totals)
+ *   readAggregate  - what GET /api/me costs now (running totals, no loop)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NetWorthBenchmark {
+
+    private static final String[] TYPES = {"STOCK", "ETF", "CRYPTO"};
+
+    @Param({"10", "1000", "100000"})
+    private int assets;
+
+    private final BigDecimal usdRate = new BigDecimal("18.2500");
+    private List<Asset> portfolio;
+    private PortfolioAggregate aggregate;
+
+    @Setup
+    public void setUp() {
+        // Fixed seed: every run values the same portfolio
+        SplittableRandom random = new SplittableRandom(42);
+        portfolio = new ArrayList<>(assets);
+        for (int i = 0; i < assets; i++) {
+            portfolio.add(Asset.builder()
+                    .id((long) i)
+                    .name("Asset " + i)
+                    .ticker("T" + random.nextInt(500))
+                    .assetType(TYPES[random.nextInt(TYPES.length)])
+                    .quantity(BigDecimal.valueOf(random.nextDouble(0.01, 500)).setScale(10, RoundingMode.HALF_UP))
+                    .buyPrice(BigDecimal.valueOf(random.nextDouble(1, 2000)).setScale(4, RoundingMode.HALF_UP))
+                    .currency(random.nextInt(10) == 0 ? "ZAR" : "USD")
+                    .build());
+        }
+        aggregate = buildAggregate(portfolio);
+    }
+
+    @Benchmark
+    public BigDecimal perAssetLoop() {
+        BigDecimal netWorthZAR = BigDecimal.ZERO;
+        for (Asset asset : portfolio) {
+            BigDecimal assetValue = asset.getQuantity().multiply(asset.getBuyPrice());
+            if ("USD".equalsIgnoreCase(asset.getCurrency())) {
+                netWorthZAR = netWorthZAR.add(assetValue.multiply(usdRate));
+            } else {
+                netWorthZAR = netWorthZAR.add(assetValue);
+            }
+        }
+        return netWorthZAR;
+    }
+
+    @Benchmark
+    public BigDecimal buildAggregate() {
+        return buildAggregate(portfolio).netWorthZar(usdRate);
+    }
+
+    @Benchmark
+    public BigDecimal readAggregate() {
+        return aggregate.netWorthZar(usdRate);
+    }
+
+    private static PortfolioAggregate buildAggregate(List<Asset> assets) {
+        PortfolioAggregate built = new PortfolioAggregate();
+        for (Asset asset : assets) {
+            built.add(asset, asset.getQuantity().multiply(asset.getBuyPrice()));
+        }
+        return built;
+    }
+}
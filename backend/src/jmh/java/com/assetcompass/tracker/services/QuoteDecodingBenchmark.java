@@ -0,0 +1,90 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.dtos.AlphaVantageResponses.ExchangeRateResponse;
+import com.assetcompass.tracker.dtos.AlphaVantageResponses.GlobalQuoteResponse;
+import com.assetcompass.tracker.dtos.AlphaVantageResponses.SymbolSearchResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding AlphaVantage bodies (captured payload shapes) the way StockService / CurrencyService get them now:
+ * MarketDataHttpClient's cached ObjectReaders into typed records.
+ * globalQuoteTree is the old path (new ObjectMapper + JsonNode tree per call), kept for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QuoteDecodingBenchmark {
+
+    private static final byte[] GLOBAL_QUOTE = """
+            {"Global Quote": {"01. symbol": "IBM", "02. open": "229.9000", "03. high": "232.2500",
+             "04. low": "229.1000", "05. price": "231.4400", "06. volume": "3127465",
+             "07. latest trading day": "2025-02-07", "08. previous close": "230.1200",
+             "09. change": "1.3200", "10. change percent": "0.5736%"}}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] EXCHANGE_RATE = """
+            {"Realtime Currency Exchange Rate": {"1. From_Currency Code": "USD", "2. From_Currency Name": "United States Dollar",
+             "3. To_Currency Code": "ZAR", "4. To_Currency Name": "South African Rand", "5. Exchange Rate": "18.43210000",
+             "6. Last Refreshed": "2025-02-07 14:05:01", "7. Time Zone": "UTC", "8. Bid Price": "18.43190000",
+             "9. Ask Price": "18.43240000"}}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SYMBOL_SEARCH = """
+            {"bestMatches": [
+             {"1. symbol": "TSCO.LON", "2. name": "Tesco PLC", "3. type": "Equity", "4. region": "United Kingdom",
+              "5. marketOpen": "08:00", "6. marketClose": "16:30", "7. timezone": "UTC+01", "8. currency": "GBX", "9. matchScore": "0.7273"},
+             {"1. symbol": "TSCDF", "2. name": "Tesco plc", "3. type": "Equity", "4. region": "United States",
+              "5. marketOpen": "09:30", "6. marketClose": "16:00", "7. timezone": "UTC-04", "8. currency": "USD", "9. matchScore": "0.7143"},
+             {"1. symbol": "TSCDY", "2. name": "Tesco plc", "3. type": "Equity", "4. region": "United States",
+              "5. marketOpen": "09:30", "6. marketClose": "16:00", "7. timezone": "UTC-04", "8. currency": "USD", "9. matchScore": "0.7143"},
+             {"1. symbol": "TCO2.FRK", "2. name": "TESCO PLC ADR/1 LS-05", "3. type": "Equity", "4. region": "Frankfurt",
+              "5. marketOpen": "08:00", "6. marketClose": "20:00", "7. timezone": "UTC+02", "8. currency": "EUR", "9. matchScore": "0.5455"}]}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private MarketDataHttpClient httpClient;
+
+    @Setup
+    public void setUp() {
+        httpClient = new MarketDataHttpClient(new ObjectMapper(), "http://localhost/query", "bench", 1000, 1000, 60);
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpClient.close();
+    }
+
+    @Benchmark
+    public BigDecimal globalQuote() {
+        return httpClient.decode(GLOBAL_QUOTE, GlobalQuoteResponse.class).price();
+    }
+
+    @Benchmark
+    public BigDecimal exchangeRate() {
+        return httpClient.decode(EXCHANGE_RATE, ExchangeRateResponse.class).rate();
+    }
+
+    @Benchmark
+    public SymbolSearchResponse symbolSearch() {
+        return httpClient.decode(SYMBOL_SEARCH, SymbolSearchResponse.class);
+    }
+
+    @Benchmark
+    public BigDecimal globalQuoteTree() throws IOException {
+        JsonNode root = new ObjectMapper().readTree(GLOBAL_QUOTE);
+        return new BigDecimal(root.path("Global Quote").path("05. price").asText());
+    }
+}
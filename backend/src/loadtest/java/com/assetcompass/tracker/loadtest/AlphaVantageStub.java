@@ -0,0 +1,210 @@
+package com.assetcompass.tracker.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A local stand-in for https://www.alphavantage.co/query, answering GLOBAL_QUOTE, CURRENCY_EXCHANGE_RATE and
+ * SYMBOL_SEARCH in the real payload shapes.
+ *
+ * - Latency: every answer waits latencyMillis + up to jitterMillis.
+ * - Rate limits: past requestsPerMinute (per calendar minute) or requestsPerDay it answers 200 with a "Note",
+ *   exactly like the real API does when a key is over quota.
+ * - Failures: errorRate of the calls get an HTTP 503.
+ * Prices follow a seeded random walk per symbol, so two runs see the same sequence.
+ */
+public class AlphaVantageStub {
+
+    private final int latencyMillis;
+    private final int jitterMillis;
+    private final int requestsPerMinute;
+    private final int requestsPerDay;
+    private final double errorRate;
+    private final long seed;
+
+    private HttpServer server;
+
+    // --- QUOTA (guarded by "this") ---
+    private long currentMinute;
+    private int usedThisMinute;
+    private int usedToday;
+
+    // --- PRICES ---
+    private final ConcurrentHashMap<String, SplittableRandom> walks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Double> prices = new ConcurrentHashMap<>();
+
+    // --- STATS ---
+    private final Map<String, LongAdder> callsByFunction = new ConcurrentHashMap<>();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public AlphaVantageStub(int latencyMillis, int jitterMillis, int requestsPerMinute, int requestsPerDay,
+                            double errorRate, long seed) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.requestsPerMinute = requestsPerMinute;
+        this.requestsPerDay = requestsPerDay;
+        this.errorRate = errorRate;
+        this.seed = seed;
+    }
+
+    public String start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/query", this::handle);
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/query";
+    }
+
+    public void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        callsByFunction.forEach((function, calls) -> stats.put(function, calls.sum()));
+        stats.put("throttled", throttled.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        String function = params.getOrDefault("function", "");
+        callsByFunction.computeIfAbsent(function, f -> new LongAdder()).increment();
+
+        sleep(latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextInt(jitterMillis + 1) : 0));
+
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            failed.increment();
+            respond(exchange, 503, "{\"error\": \"stub failure\"}");
+            return;
+        }
+        if (!takeQuota()) {
+            throttled.increment();
+            respond(exchange, 200, "{\"Note\": \"Thank you for using Alpha Vantage! Our standard API rate limit is "
+                    + requestsPerMinute + " requests per minute.\"}");
+            return;
+        }
+
+        String body = switch (function) {
+            case "GLOBAL_QUOTE" -> globalQuote(params.getOrDefault("symbol", ""));
+            case "CURRENCY_EXCHANGE_RATE" -> exchangeRate(params.getOrDefault("from_currency", "USD"),
+                    params.getOrDefault("to_currency", "ZAR"));
+            case "SYMBOL_SEARCH" -> symbolSearch(params.getOrDefault("keywords", ""));
+            default -> "{\"Error Message\": \"Invalid API call.\"}";
+        };
+        respond(exchange, 200, body);
+    }
+
+    private synchronized boolean takeQuota() {
+        long minute = System.currentTimeMillis() / 60_000;
+        if (minute != currentMinute) {
+            currentMinute = minute;
+            usedThisMinute = 0;
+        }
+        if ((requestsPerMinute > 0 && usedThisMinute >= requestsPerMinute)
+                || (requestsPerDay > 0 && usedToday >= requestsPerDay)) {
+            return false;
+        }
+        usedThisMinute++;
+        usedToday++;
+        return true;
+    }
+
+    // --- PAYLOADS ---
+
+    private String globalQuote(String symbol) {
+        String ticker = symbol.toUpperCase(Locale.ROOT);
+        BigDecimal price = nextPrice("Q:" + ticker, 0);
+        return "{\"Global Quote\": {\"01. symbol\": \"" + ticker + "\", \"05. price\": \"" + price
+                + "\", \"07. latest trading day\": \"2025-02-07\"}}";
+    }
+
+    private String exchangeRate(String from, String to) {
+        String pair = from.toUpperCase(Locale.ROOT) + "/" + to.toUpperCase(Locale.ROOT);
+        double start = switch (pair) {
+            case "USD/ZAR" -> 18.5;
+            case "BTC/USD" -> 60_000;
+            case "ETH/USD" -> 3_000;
+            default -> 1;
+        };
+        BigDecimal rate = nextPrice("FX:" + pair, start);
+        return "{\"Realtime Currency Exchange Rate\": {\"1. From_Currency Code\": \"" + from.toUpperCase(Locale.ROOT)
+                + "\", \"3. To_Currency Code\": \"" + to.toUpperCase(Locale.ROOT)
+                + "\", \"5. Exchange Rate\": \"" + rate + "\"}}";
+    }
+
+    private String symbolSearch(String keywords) {
+        String query = keywords.toUpperCase(Locale.ROOT);
+        StringBuilder body = new StringBuilder("{\"bestMatches\": [");
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) body.append(", ");
+            String symbol = i == 0 ? query : query + (char) ('A' + i - 1);
+            body.append("{\"1. symbol\": \"").append(symbol)
+                .append("\", \"2. name\": \"").append(symbol).append(" Stub Inc")
+                .append("\", \"3. type\": \"Equity\", \"4. region\": \"United States\", \"8. currency\": \"USD\"}");
+        }
+        return body.append("]}").toString();
+    }
+
+    // One step of the symbol's random walk (about 0.5% per call, never negative)
+    private BigDecimal nextPrice(String key, double start) {
+        SplittableRandom random = walks.computeIfAbsent(key, k -> new SplittableRandom(seed ^ k.hashCode()));
+        synchronized (random) {
+            double previous = prices.computeIfAbsent(key, k -> start > 0 ? start : 20 + random.nextDouble() * 480);
+            double next = previous * Math.exp(0.005 * random.nextGaussian());
+            prices.put(key, next);
+            return BigDecimal.valueOf(next).setScale(4, RoundingMode.HALF_UP);
+        }
+    }
+
+    // --- HTTP PLUMBING ---
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.assetcompass.tracker.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in microseconds with log-linear buckets:
+ * every power of two is split into 16 sub-buckets, so any percentile is within ~6% of the real value.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BITS = 4;
+    private static final int MAX_EXPONENT = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (MAX_EXPONENT - SUB_BITS) * SUB_BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile long maxMicros;
+
+    public void record(long micros, boolean ok) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(index(value));
+        total.increment();
+        if (!ok) errors.increment();
+        if (value > maxMicros) {
+            synchronized (this) {
+                if (value > maxMicros) maxMicros = value;
+            }
+        }
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public long maxMicros() {
+        return maxMicros;
+    }
+
+    // Value at the given percentile (0-100), as the middle of the bucket it falls in
+    public long percentileMicros(double percentile) {
+        long count = count();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                long low = lowerBound(i);
+                return Math.min(maxMicros, low + (lowerBound(i + 1) - low) / 2);
+            }
+        }
+        return maxMicros;
+    }
+
+    // Counts per power-of-two millisecond range ("<= 1ms", "<= 2ms", ...) for printing
+    public long[] countsByMillisPowerOfTwo(int ranges) {
+        long[] result = new long[ranges];
+        for (int i = 0; i < counts.length(); i++) {
+            long c = counts.get(i);
+            if (c == 0) continue;
+            long millis = Math.max(1, (lowerBound(i) + 999) / 1000);
+            int range = Math.min(ranges - 1, 64 - Long.numberOfLeadingZeros(millis - 1));
+            result[range] += c;
+        }
+        return result;
+    }
+
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int exponent = Math.min(MAX_EXPONENT - 1, 63 - Long.numberOfLeadingZeros(micros));
+        int sub = (int) ((micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+        return SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    private static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+}
@@ -0,0 +1,445 @@
+package com.assetcompass.tracker.loadtest;
+
+import com.assetcompass.tracker.AssetCompassTrackerApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: the real app over real HTTP, with AlphaVantage replaced by AlphaVantageStub.
+ *
+ * 1. Starts the stub and (unless target=... is given) boots the app with the "loadtest" profile (H2 by default).
+ * 2. Registers "users" accounts and gives each "assets-per-user" holdings through the buy endpoint.
+ * 3. For every stage, runs that many virtual users for stage-seconds. Each picks its next call from the weighted
+ *    mix, waits for the answer, pauses think-ms, repeats (closed loop).
+ * 4. Prints p50 / p90 / p99 / p99.9 / max and throughput per endpoint per stage, a latency histogram for the last
+ *    stage and where throughput stopped scaling. Writes every row to a CSV report as well.
+ *
+ * Options are key=value arguments (defaults below). Keys containing a dot go to Spring instead,
+ * e.g. spring.datasource.url=jdbc:postgresql://localhost:5432/assetcompass?user=me&password=pw
+ */
+public class LoadTest {
+
+    enum Endpoint {
+        LOGIN("login", "POST /api/auth/login"),
+        ME("me", "GET /api/me"),
+        ASSETS("assets", "GET /api/assets"),
+        BUY("buy", "POST /api/assets/buy"),
+        REFRESH("refresh", "PUT /api/assets/{id}/refresh"),
+        REFRESH_ALL("refresh-all", "PUT /api/assets/refresh");
+
+        final String key;
+        final String label;
+
+        Endpoint(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+    }
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("target", "");                 // Base URL of an already running app; empty = boot one here
+        DEFAULTS.put("users", "50");
+        DEFAULTS.put("assets-per-user", "5");
+        DEFAULTS.put("stages", "10,50,100,200");      // Concurrent virtual users per stage
+        DEFAULTS.put("stage-seconds", "30");
+        DEFAULTS.put("warmup-seconds", "10");
+        DEFAULTS.put("think-ms", "0");
+        DEFAULTS.put("mix", "me:40,assets:25,buy:10,refresh:10,refresh-all:5,login:10");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("report", "loadtest-report.csv");
+        DEFAULTS.put("stub.latency-ms", "150");
+        DEFAULTS.put("stub.jitter-ms", "100");
+        DEFAULTS.put("stub.requests-per-minute", "300");
+        DEFAULTS.put("stub.requests-per-day", "0");
+        DEFAULTS.put("stub.error-rate", "0");
+    }
+
+    private static final String[] TICKERS = {
+            "AAPL", "MSFT", "NVDA", "AMZN", "GOOGL", "META", "TSLA", "IBM", "ORCL", "INTC",
+            "AMD", "NFLX", "ADBE", "CRM", "PYPL", "KO", "PEP", "JNJ", "V", "MA"};
+
+    private static final String PASSWORD = "LoadTest#2025";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private String baseUrl;
+
+    // One test account and what we know about it
+    private record Account(String email, List<Long> assetIds, String[] token) {
+        String bearer() {
+            return "Bearer " + token[0];
+        }
+    }
+
+    private record StageResult(int concurrency, double seconds, Map<Endpoint, LatencyHistogram> histograms) {
+        long total() {
+            return histograms.values().stream().mapToLong(LatencyHistogram::count).sum();
+        }
+
+        double throughput() {
+            return total() / seconds;
+        }
+
+        long p99Micros() {
+            // Worst endpoint p99 - the one users notice
+            return histograms.values().stream().mapToLong(h -> h.percentileMicros(99)).max().orElse(0);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        Map<String, Object> springProperties = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) continue;
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            if (key.contains(".") && !key.startsWith("stub.")) {
+                springProperties.put(key, value);
+            } else {
+                options.put(key, value);
+            }
+        }
+
+        int exitCode = 0;
+        try {
+            new LoadTest().run(options, springProperties);
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
+
+    private void run(Map<String, String> options, Map<String, Object> springProperties) throws Exception {
+        long seed = Long.parseLong(options.get("seed"));
+
+        // 1. Upstream stub + the app
+        AlphaVantageStub stub = new AlphaVantageStub(
+                Integer.parseInt(options.get("stub.latency-ms")),
+                Integer.parseInt(options.get("stub.jitter-ms")),
+                Integer.parseInt(options.get("stub.requests-per-minute")),
+                Integer.parseInt(options.get("stub.requests-per-day")),
+                Double.parseDouble(options.get("stub.error-rate")),
+                seed);
+        String stubUrl = stub.start();
+        System.out.println("✅ AlphaVantage stub listening on " + stubUrl);
+
+        ConfigurableApplicationContext app = null;
+        baseUrl = options.get("target");
+        if (baseUrl.isBlank()) {
+            springProperties.putIfAbsent("server.port", "0");
+            springProperties.put("app.alphavantage.base-url", stubUrl);
+            // The gateway paces itself to the stub's limit (a stub without one gets a quota we never reach)
+            int stubPerMinute = Integer.parseInt(options.get("stub.requests-per-minute"));
+            springProperties.putIfAbsent("app.alphavantage.requests-per-minute", stubPerMinute > 0 ? stubPerMinute : 100_000);
+            String jdbcUrl = String.valueOf(springProperties.getOrDefault("spring.datasource.url", ""));
+            if (jdbcUrl.startsWith("jdbc:postgresql:")) {
+                springProperties.putIfAbsent("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+            }
+            // As command-line arguments, so they win over application.properties
+            List<String> springArgs = new ArrayList<>();
+            springProperties.forEach((key, value) -> springArgs.add("--" + key + "=" + value));
+            app = new SpringApplicationBuilder(AssetCompassTrackerApplication.class)
+                    .profiles("loadtest")
+                    .run(springArgs.toArray(String[]::new));
+            baseUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+            System.out.println("✅ App started on " + baseUrl);
+        } else {
+            System.out.println("⚠️ Using running app at " + baseUrl + " - point its app.alphavantage.base-url at " + stubUrl);
+        }
+
+        try {
+            // 2. Accounts + holdings
+            List<Account> accounts = createAccounts(Integer.parseInt(options.get("users")),
+                    Integer.parseInt(options.get("assets-per-user")), seed);
+
+            // 3. Stages
+            Map<Endpoint, Integer> mix = parseMix(options.get("mix"));
+            long thinkMillis = Long.parseLong(options.get("think-ms"));
+            int stageSeconds = Integer.parseInt(options.get("stage-seconds"));
+            List<Integer> stages = new ArrayList<>();
+            for (String stage : options.get("stages").split(",")) {
+                stages.add(Integer.parseInt(stage.trim()));
+            }
+
+            System.out.println("Warming up for " + options.get("warmup-seconds") + "s...");
+            runStage(stages.get(0), Integer.parseInt(options.get("warmup-seconds")), accounts, mix, thinkMillis, seed);
+
+            List<StageResult> results = new ArrayList<>();
+            for (int concurrency : stages) {
+                StageResult result = runStage(concurrency, stageSeconds, accounts, mix, thinkMillis, seed + concurrency);
+                printStage(result);
+                results.add(result);
+            }
+
+            // 4. Summary
+            printHistograms(results.get(results.size() - 1));
+            printSaturation(results);
+            System.out.println("AlphaVantage stub: " + stub.getStats());
+            writeReport(Path.of(options.get("report")), results);
+        } finally {
+            if (app != null) app.close();
+            stub.stop();
+        }
+    }
+
+    // --- SETUP ---
+
+    private List<Account> createAccounts(int users, int assetsPerUser, long seed) throws Exception {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        List<Account> accounts = new CopyOnWriteArrayList<>();
+
+        try (ExecutorService setup = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                int n = i;
+                setup.submit(() -> {
+                    Account account = new Account("load-" + runId + "-" + n + "@assetcompass.test",
+                            new CopyOnWriteArrayList<>(), new String[1]);
+                    send("POST", "/api/auth/register", null, Map.of(
+                            "fullName", "Load User " + n, "email", account.email(), "password", PASSWORD));
+                    login(account);
+
+                    SplittableRandom random = new SplittableRandom(seed + n);
+                    for (int a = 0; a < assetsPerUser; a++) {
+                        buy(account, random);
+                    }
+                    loadAssetIds(account);
+                    accounts.add(account);
+                    return null;
+                });
+            }
+        }
+        if (accounts.isEmpty()) {
+            throw new IllegalStateException("No test account could be created - is the app reachable at " + baseUrl + "?");
+        }
+        System.out.println("✅ " + accounts.size() + " accounts ready with " + assetsPerUser + " holdings each");
+        return accounts;
+    }
+
+    // --- STAGES ---
+
+    private StageResult runStage(int concurrency, int seconds, List<Account> accounts, Map<Endpoint, Integer> mix,
+                                 long thinkMillis, long seed) throws InterruptedException {
+        Map<Endpoint, LatencyHistogram> histograms = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            histograms.put(endpoint, new LatencyHistogram());
+        }
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        SplittableRandom root = new SplittableRandom(seed);
+        ExecutorService users = Executors.newVirtualThreadPerTaskExecutor();
+        for (int u = 0; u < concurrency; u++) {
+            Account account = accounts.get(u % accounts.size());
+            SplittableRandom random = root.split();
+            users.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    Endpoint endpoint = pick(mix, totalWeight, random);
+                    long began = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = call(endpoint, account, random);
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    histograms.get(endpoint).record((System.nanoTime() - began) / 1000, ok);
+                    if (thinkMillis > 0) Thread.sleep(thinkMillis);
+                }
+                return null;
+            });
+        }
+        users.shutdown();
+        users.awaitTermination(seconds + 120L, TimeUnit.SECONDS);
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        return new StageResult(concurrency, elapsed, histograms);
+    }
+
+    private static Endpoint pick(Map<Endpoint, Integer> mix, int totalWeight, SplittableRandom random) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) return entry.getKey();
+        }
+        return Endpoint.ME;
+    }
+
+    private boolean call(Endpoint endpoint, Account account, SplittableRandom random) throws Exception {
+        return switch (endpoint) {
+            case LOGIN -> login(account);
+            case ME -> send("GET", "/api/me", account, null).statusCode() == 200;
+            case ASSETS -> send("GET", "/api/assets?limit=100", account, null).statusCode() == 200;
+            case BUY -> buy(account, random);
+            case REFRESH -> {
+                List<Long> ids = account.assetIds();
+                if (ids.isEmpty()) yield send("GET", "/api/me", account, null).statusCode() == 200;
+                long id = ids.get(random.nextInt(ids.size()));
+                yield send("PUT", "/api/assets/" + id + "/refresh", account, null).statusCode() == 200;
+            }
+            case REFRESH_ALL -> send("PUT", "/api/assets/refresh", account, null).statusCode() == 200;
+        };
+    }
+
+    // --- CALLS ---
+
+    private boolean login(Account account) throws Exception {
+        HttpResponse<String> response = send("POST", "/api/auth/login", null,
+                Map.of("email", account.email(), "password", PASSWORD));
+        if (response.statusCode() != 200) return false;
+        account.token()[0] = objectMapper.readTree(response.body()).path("token").asText();
+        return true;
+    }
+
+    private boolean buy(Account account, SplittableRandom random) throws Exception {
+        String ticker = TICKERS[random.nextInt(TICKERS.length)];
+        Map<String, Object> request = Map.of(
+                "ticker", ticker,
+                "name", ticker + " (load test)",
+                "assetType", "STOCK",
+                "amount", 100 + random.nextInt(4900),
+                "currency", random.nextInt(4) == 0 ? "USD" : "ZAR");
+        return send("POST", "/api/assets/buy", account, request).statusCode() == 200;
+    }
+
+    private void loadAssetIds(Account account) throws Exception {
+        HttpResponse<String> response = send("GET", "/api/assets?limit=100", account, null);
+        if (response.statusCode() != 200) return;
+        for (JsonNode asset : objectMapper.readTree(response.body())) {
+            account.assetIds().add(asset.path("id").asLong());
+        }
+    }
+
+    private HttpResponse<String> send(String method, String path, Account account, Object body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Accept", "application/json");
+        if (account != null && account.token()[0] != null) {
+            request.header("Authorization", account.bearer());
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                   .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // --- REPORTING ---
+
+    private static void printStage(StageResult result) {
+        System.out.printf(Locale.ROOT, "%n=== %d virtual users, %.1fs: %.1f req/s total ===%n",
+                result.concurrency(), result.seconds(), result.throughput());
+        System.out.printf(Locale.ROOT, "%-30s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        result.histograms().forEach((endpoint, h) -> {
+            if (h.count() == 0) return;
+            System.out.printf(Locale.ROOT, "%-30s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint.label, h.count(), h.errors(), h.count() / result.seconds(),
+                    ms(h.percentileMicros(50)), ms(h.percentileMicros(90)), ms(h.percentileMicros(99)),
+                    ms(h.percentileMicros(99.9)), ms(h.maxMicros()));
+        });
+    }
+
+    private static void printHistograms(StageResult result) {
+        int ranges = 16; // <= 1ms ... <= 32s
+        System.out.printf(Locale.ROOT, "%n=== Latency histograms (%d virtual users) ===%n", result.concurrency());
+        result.histograms().forEach((endpoint, h) -> {
+            if (h.count() == 0) return;
+            System.out.println(endpoint.label);
+            long[] counts = h.countsByMillisPowerOfTwo(ranges);
+            long peak = 1;
+            for (long c : counts) peak = Math.max(peak, c);
+            for (int r = 0; r < ranges; r++) {
+                if (counts[r] == 0) continue;
+                int bar = (int) Math.max(1, counts[r] * 50 / peak);
+                System.out.printf(Locale.ROOT, "  <= %6d ms %8d %s%n", 1L << r, counts[r], "#".repeat(bar));
+            }
+        });
+    }
+
+    // Saturation = the first stage where adding users no longer buys throughput (< 10% more) but p99 keeps growing
+    private static void printSaturation(List<StageResult> results) {
+        System.out.println();
+        for (int i = 1; i < results.size(); i++) {
+            StageResult previous = results.get(i - 1);
+            StageResult current = results.get(i);
+            if (current.throughput() < previous.throughput() * 1.10 && current.p99Micros() > previous.p99Micros()) {
+                System.out.printf(Locale.ROOT, "⚠️ Saturated at ~%d virtual users: %.1f req/s (worst p99 %.1f ms -> %.1f ms at %d users)%n",
+                        previous.concurrency(), previous.throughput(), ms(previous.p99Micros()),
+                        ms(current.p99Micros()), current.concurrency());
+                return;
+            }
+        }
+        StageResult last = results.get(results.size() - 1);
+        System.out.printf(Locale.ROOT, "✅ Still scaling at %d virtual users (%.1f req/s) - add a bigger stage to find the limit%n",
+                last.concurrency(), last.throughput());
+    }
+
+    private static void writeReport(Path path, List<StageResult> results) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println("virtual_users,endpoint,count,errors,req_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+            for (StageResult result : results) {
+                result.histograms().forEach((endpoint, h) -> out.printf(Locale.ROOT, "%d,%s,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f%n",
+                        result.concurrency(), endpoint.key, h.count(), h.errors(), h.count() / result.seconds(),
+                        ms(h.percentileMicros(50)), ms(h.percentileMicros(90)), ms(h.percentileMicros(99)),
+                        ms(h.percentileMicros(99.9)), ms(h.maxMicros())));
+            }
+        }
+        System.out.println("✅ Report written to " + path.toAbsolutePath());
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split(":");
+            for (Endpoint endpoint : Endpoint.values()) {
+                if (endpoint.key.equalsIgnoreCase(kv[0].trim())) {
+                    weights.put(endpoint, Integer.parseInt(kv[1].trim()));
+                }
+            }
+        }
+        weights.values().removeIf(weight -> weight <= 0);
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Empty mix: " + mix);
+        }
+        return weights;
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,54 @@
+package com.assetcompass.tracker.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records every repository call of a timed request as a "db.<Repository>.<method>" phase
+ * (e.g. db.AppUserRepository.findByEmail, db.AssetRepository.save).
+ * Only the outermost call is timed: a repository delegating to its custom fragment counts once.
+ */
+@Aspect
+@Component
+public class RepositoryTimingAspect {
+
+    private static final ThreadLocal<Boolean> IN_REPOSITORY = new ThreadLocal<>();
+
+    // Proxy / implementation class -> our repository's simple name
+    private final ConcurrentHashMap<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("this(org.springframework.data.repository.Repository) || within(com.assetcompass.tracker.repositories..*)")
+    public Object time(ProceedingJoinPoint call) throws Throwable {
+        if (!RequestTiming.isActive() || IN_REPOSITORY.get() != null) {
+            return call.proceed();
+        }
+
+        IN_REPOSITORY.set(Boolean.TRUE);
+        String name = "db." + repositoryName(call.getThis().getClass()) + "." + call.getSignature().getName();
+        try (RequestTiming.Phase phase = RequestTiming.start(name)) {
+            return call.proceed();
+        } finally {
+            IN_REPOSITORY.remove();
+        }
+    }
+
+    // Spring Data proxies implement our interface; custom fragments are our class (possibly CGLIB-subclassed)
+    private String repositoryName(Class<?> type) {
+        return repositoryNames.computeIfAbsent(type, key -> {
+            for (Class<?> candidate : key.getInterfaces()) {
+                if (candidate.getName().startsWith("com.assetcompass.tracker.repositories.")) {
+                    return candidate.getSimpleName();
+                }
+            }
+            Class<?> user = key;
+            while (user.getName().contains("$$")) {
+                user = user.getSuperclass();
+            }
+            return user.getSimpleName();
+        });
+    }
+}
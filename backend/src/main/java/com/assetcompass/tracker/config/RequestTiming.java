@@ -0,0 +1,99 @@
+package com.assetcompass.tracker.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Phase timings for the request running on this thread (auth, db calls, quote, fx, json...).
+ * RequestTimingFilter opens it per request and turns it into a Server-Timing header and the slow-request log.
+ *
+ * Usage: try (RequestTiming.Phase phase = RequestTiming.start("quote")) { ... }
+ * Outside a timed request start() returns a no-op phase, so services can call it unconditionally.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    // Closing a phase never throws, so it fits try-with-resources without a catch
+    public interface Phase extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Phase NOOP = () -> {};
+
+    // Totals per phase name (count + nanos), in the order phases first ran (guarded by "this")
+    private final Map<String, long[]> phases = new LinkedHashMap<>();
+    private final long startedNanos = System.nanoTime();
+
+    static RequestTiming begin() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static Phase start(String name) {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) {
+            return NOOP;
+        }
+        long started = System.nanoTime();
+        return () -> timing.add(name, System.nanoTime() - started);
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    synchronized void add(String name, long nanos) {
+        long[] totals = phases.computeIfAbsent(name, key -> new long[2]);
+        totals[0]++;
+        totals[1] += nanos;
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startedNanos;
+    }
+
+    /**
+     * Server-Timing value, e.g.: auth;dur=0.4, db.AssetRepository.save;dur=3.1;desc="x2", json;dur=0.2, total;dur=41.7
+     * Only the first "maxEntries" phases are listed; "total" is always there.
+     */
+    synchronized String toHeader(int maxEntries) {
+        StringBuilder header = new StringBuilder();
+        int written = 0;
+        for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+            if (written++ == maxEntries) break;
+            header.append(phase.getKey()).append(";dur=").append(millis(phase.getValue()[1]));
+            if (phase.getValue()[0] > 1) {
+                header.append(";desc=\"x").append(phase.getValue()[0]).append('"');
+            }
+            header.append(", ");
+        }
+        return header.append("total;dur=").append(millis(elapsedNanos())).toString();
+    }
+
+    // Full breakdown for the log, e.g.: auth 0.4ms, db.AssetRepository.save 3.1ms (x2), quote 812.0ms
+    synchronized String toSummary() {
+        if (phases.isEmpty()) return "no phases recorded";
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+            if (!summary.isEmpty()) summary.append(", ");
+            summary.append(phase.getKey()).append(' ').append(millis(phase.getValue()[1])).append("ms");
+            if (phase.getValue()[0] > 1) {
+                summary.append(" (x").append(phase.getValue()[0]).append(')');
+            }
+        }
+        return summary.toString();
+    }
+
+    // Milliseconds with one decimal, without going through String.format
+    private static String millis(long nanos) {
+        long tenths = (nanos + 50_000) / 100_000;
+        return (tenths / 10) + "." + (tenths % 10);
+    }
+}
@@ -0,0 +1,153 @@
+package com.assetcompass.tracker.config;
+
+import com.assetcompass.tracker.security.AuthenticatedUser;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times every request phase by phase (see RequestTiming) and reports it two ways:
+ * 1. A Server-Timing header, added just before the response is committed, so the dashboard can show
+ *    where a slow call spent its time (the header is exposed through CORS in SecurityConfig).
+ *    It names repositories and methods, so it is off unless app.timing.server-timing=true, and even then
+ *    only admins get it.
+ * 2. A log line with the full breakdown for requests slower than app.timing.slow-request-ms
+ *    (a sample of them, if app.timing.slow-log-sample-rate is below 1).
+ * Runs before the Spring Security chain, so JWT verification is part of the picture.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTimingFilter.class);
+
+    @Value("${app.timing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.timing.slow-request-ms:1000}")
+    private long slowRequestMillis;
+
+    @Value("${app.timing.slow-log-sample-rate:1.0}")
+    private double slowLogSampleRate;
+
+    @Value("${app.timing.server-timing:false}")
+    private boolean serverTimingHeader;
+
+    @Value("${app.timing.max-header-entries:20}")
+    private int maxHeaderEntries;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        RequestTiming timing = RequestTiming.begin();
+        ServerTimingResponse timedResponse = new ServerTimingResponse(request, response, timing);
+        try {
+            chain.doFilter(request, timedResponse);
+        } finally {
+            RequestTiming.end();
+            timedResponse.writeHeader(); // No body (e.g. 204): nothing has committed the response yet
+
+            // Streams (SSE, exports) finish on another thread - their lifetime isn't a request latency
+            if (!request.isAsyncStarted()) {
+                logIfSlow(request, response, timing);
+            }
+        }
+    }
+
+    private void logIfSlow(HttpServletRequest request, HttpServletResponse response, RequestTiming timing) {
+        long elapsedMillis = timing.elapsedNanos() / 1_000_000;
+        if (elapsedMillis < slowRequestMillis) return;
+        if (slowLogSampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= slowLogSampleRate) return;
+
+        log.warn("Slow request: {} {} -> {} in {}ms | {}", request.getMethod(), request.getRequestURI(),
+                response.getStatus(), elapsedMillis, timing.toSummary());
+    }
+
+    /**
+     * Adds Server-Timing the moment the body (or an error / redirect) is about to be written -
+     * after that the headers are on the wire.
+     */
+    private class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private final RequestTiming timing;
+        private boolean headerWritten;
+
+        ServerTimingResponse(HttpServletRequest request, HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.request = request;
+            this.timing = timing;
+        }
+
+        void writeHeader() {
+            if (headerWritten) return;
+            headerWritten = true;
+            if (serverTimingHeader && !isCommitted() && isAdmin()) {
+                setHeader("Server-Timing", timing.toHeader(maxHeaderEntries));
+            }
+        }
+
+        // Read from the request, not the SecurityContext: for a response without a body this runs after
+        // the security chain has returned and cleared the context
+        private boolean isAdmin() {
+            return request.getAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE) instanceof AuthenticatedUser user
+                    && user.isAdmin();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            writeHeader();
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            writeHeader();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+    }
+}
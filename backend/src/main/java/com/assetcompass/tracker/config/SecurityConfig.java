@@ -1,7 +1,9 @@
 package com.assetcompass.tracker.config;
 
 import com.assetcompass.tracker.security.JwtAuthenticationFilter;
+import com.assetcompass.tracker.security.MetricsScrapeTokenFilter;
 import com.assetcompass.tracker.services.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -27,9 +29,11 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final MetricsScrapeTokenFilter metricsScrapeTokenFilter;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, MetricsScrapeTokenFilter metricsScrapeTokenFilter) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.metricsScrapeTokenFilter = metricsScrapeTokenFilter;
     }
 
     @Bean
@@ -56,14 +60,21 @@ public class SecurityConfig {
                 .cors(Customizer.withDefaults()) // 1. CORS is applied first
                 .csrf(csrf -> csrf.disable())    // 2. CSRF is disabled
                 .authorizeHttpRequests(auth -> auth
+                        // Streamed responses finish on an async dispatch of an already-authorized request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()   // Public access
                         .requestMatchers("/api/market/**").permitAll() // Public access
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN") // Maintenance jobs
+                        .requestMatchers("/actuator/health").permitAll()   // Uptime checks
+                        .requestMatchers(MetricsScrapeTokenFilter.SCRAPE_PATH).hasAnyRole("ADMIN", "METRICS") // Prometheus (scrape token)
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()                  // Locked
                 )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(metricsScrapeTokenFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -79,7 +90,7 @@ public class SecurityConfig {
 
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Accept", "Origin", "Access-Control-Request-Method", "Access-Control-Request-Headers"));
-        configuration.setExposedHeaders(Arrays.asList("Access-Control-Allow-Origin", "Access-Control-Allow-Credentials"));
+        configuration.setExposedHeaders(Arrays.asList("Access-Control-Allow-Origin", "Access-Control-Allow-Credentials", "X-Next-Cursor", "Server-Timing"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // Cache preflight requests for 1 hour
 
@@ -0,0 +1,31 @@
+package com.assetcompass.tracker.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Boot's JSON converter (same class, same ObjectMapper - Boot backs off when one is defined) that times
+ * serialization as the "json" phase. It writes straight to the response like the default one: the phase
+ * ends after the headers are sent, so it shows in the slow-request log rather than in Server-Timing.
+ */
+@Component
+public class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        try (RequestTiming.Phase phase = RequestTiming.start("json")) {
+            super.writeInternal(object, type, outputMessage);
+        }
+    }
+}
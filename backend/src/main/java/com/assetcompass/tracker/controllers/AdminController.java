@@ -0,0 +1,60 @@
+package com.assetcompass.tracker.controllers;
+
+import com.assetcompass.tracker.services.MarketDataProvider;
+import com.assetcompass.tracker.services.PriceStreamService;
+import com.assetcompass.tracker.services.TransactionRetentionService;
+import com.assetcompass.tracker.services.TransactionRetentionService.RetentionReport;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// Maintenance endpoints (ADMIN role only - see SecurityConfig)
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final TransactionRetentionService retentionService;
+    private final MarketDataProvider marketData;
+    private final PriceStreamService priceStreamService;
+
+    public AdminController(TransactionRetentionService retentionService, MarketDataProvider marketData,
+                           PriceStreamService priceStreamService) {
+        this.retentionService = retentionService;
+        this.marketData = marketData;
+        this.priceStreamService = priceStreamService;
+    }
+
+    // 1. Outcome of the last retention run (rows compacted, batches, duration)
+    @GetMapping("/retention")
+    public ResponseEntity<?> getRetentionReport() {
+        RetentionReport report = retentionService.getLastReport();
+        if (report == null) {
+            return ResponseEntity.ok(Map.of("message", "Retention has not run yet"));
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // 2. Run retention now instead of waiting for the nightly schedule
+    @PostMapping("/retention/run")
+    public ResponseEntity<?> runRetention() {
+        RetentionReport report = retentionService.runOnce();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Retention is already running"));
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // 3. Upstream quota status (queue depth, wait times, calls left today, circuit states)
+    @GetMapping("/market-data")
+    public Map<String, Object> getMarketDataStatus() {
+        return marketData.getStats();
+    }
+
+    // 4. Live price stream: connections, subscribed tickers, dropped frames
+    @GetMapping("/stream")
+    public Map<String, Object> getStreamStatus() {
+        return priceStreamService.getStats();
+    }
+}
@@ -1,21 +1,36 @@
 package com.assetcompass.tracker.controllers;
 
+import com.assetcompass.tracker.dtos.AssetDTO;
 import com.assetcompass.tracker.dtos.BuyAssetRequest;
+import com.assetcompass.tracker.dtos.HistoryPointDTO;
+import com.assetcompass.tracker.dtos.PageCursor;
 import com.assetcompass.tracker.models.AppUser;
 import com.assetcompass.tracker.models.Asset;
 import com.assetcompass.tracker.models.Transaction;
 import com.assetcompass.tracker.repositories.AppUserRepository;
 import com.assetcompass.tracker.repositories.AssetRepository;
+import com.assetcompass.tracker.repositories.AssetRepositoryCustom.AssetSort;
+import com.assetcompass.tracker.repositories.AssetRepositoryCustomImpl;
 import com.assetcompass.tracker.repositories.TransactionRepository;
+import com.assetcompass.tracker.security.AuthenticatedUser;
+import com.assetcompass.tracker.services.AssetHistoryService;
+import com.assetcompass.tracker.services.AssetRefreshService;
 import com.assetcompass.tracker.services.CurrencyService;
+import com.assetcompass.tracker.services.HoldingsImportService;
+import com.assetcompass.tracker.services.PortfolioValuationService;
+import com.assetcompass.tracker.services.PriceUpdatedEvent;
+import com.assetcompass.tracker.services.Purchase;
 import com.assetcompass.tracker.services.StockService;
+import com.assetcompass.tracker.services.ValuationSeriesStore;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -24,31 +39,50 @@ import java.util.Map;
 @RequestMapping("/api/assets")
 public class AssetController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final AssetRepository assetRepository;
     private final AppUserRepository userRepository;
     private final StockService stockService;
     private final CurrencyService currencyService;
     private final TransactionRepository transactionRepository;
+    private final AssetRefreshService assetRefreshService;
+    private final PortfolioValuationService portfolioValuationService;
+    private final AssetHistoryService assetHistoryService;
+    private final ValuationSeriesStore valuationSeriesStore;
+    private final HoldingsImportService holdingsImportService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AssetController(AssetRepository assetRepository,
                            AppUserRepository userRepository,
                            StockService stockService,
                            CurrencyService currencyService,
-                           TransactionRepository transactionRepository) {
+                           TransactionRepository transactionRepository,
+                           AssetRefreshService assetRefreshService,
+                           PortfolioValuationService portfolioValuationService,
+                           AssetHistoryService assetHistoryService,
+                           ValuationSeriesStore valuationSeriesStore,
+                           HoldingsImportService holdingsImportService,
+                           ApplicationEventPublisher eventPublisher) {
         this.assetRepository = assetRepository;
         this.userRepository = userRepository;
         this.stockService = stockService;
         this.currencyService = currencyService;
         this.transactionRepository = transactionRepository;
+        this.assetRefreshService = assetRefreshService;
+        this.portfolioValuationService = portfolioValuationService;
+        this.assetHistoryService = assetHistoryService;
+        this.valuationSeriesStore = valuationSeriesStore;
+        this.holdingsImportService = holdingsImportService;
+        this.eventPublisher = eventPublisher;
     }
 
     // --- 1. BUY ASSET ---
     @PostMapping("/buy")
-    public ResponseEntity<?> buyAsset(@RequestBody BuyAssetRequest request) {
-        // 1. Get Logged-in User
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        AppUser user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public ResponseEntity<?> buyAsset(@AuthenticationPrincipal AuthenticatedUser principal,
+                                      @RequestBody BuyAssetRequest request) {
+        // 1. Get Logged-in User (a reference is enough to link the asset - no SELECT needed)
+        AppUser user = userRepository.getReferenceById(principal.id());
 
         // 2. Fetch Live Stock Price (in USD)
         BigDecimal stockPriceUsd = stockService.getStockPrice(request.getTicker());
@@ -59,24 +93,22 @@ public class AssetController {
         // 3. Fetch Live Exchange Rate
         BigDecimal usdRate = currencyService.getUsdToZarRate();
 
-        // 4. Handle Currency Conversion (ZAR -> USD)
-        BigDecimal investedAmountUsd = request.getAmount();
-
-        if ("ZAR".equalsIgnoreCase(request.getCurrency())) {
-            investedAmountUsd = request.getAmount().divide(usdRate, 2, RoundingMode.HALF_DOWN);
+        // 4-5. Currency conversion (ZAR -> USD, 2 decimals) and shares (10 decimals), both HALF_DOWN
+        Purchase purchase;
+        try {
+            purchase = Purchase.of(request.getAmount(), request.getCurrency(), stockPriceUsd, usdRate);
+        } catch (ArithmeticException e) {
+            return ResponseEntity.badRequest().body("Amount out of range for " + request.getTicker());
         }
 
-        // 5. Calculate Shares Purchased
-        BigDecimal sharesQuantity = investedAmountUsd.divide(stockPriceUsd, 10, RoundingMode.HALF_DOWN);
-
         // 6. Save to Database
         Asset newAsset = Asset.builder()
                 .user(user)
                 .name(request.getName())
                 .ticker(request.getTicker().toUpperCase())
                 .assetType(request.getAssetType())
-                .quantity(sharesQuantity)
-                .buyPrice(stockPriceUsd)
+                .quantity(purchase.shares())
+                .buyPrice(purchase.priceUsd())
                 .exchangeRateAtBuy(usdRate)
                 .currency("USD")
                 .purchaseDate(LocalDateTime.now())
@@ -89,33 +121,135 @@ public class AssetController {
         Transaction initialLog = new Transaction();
         initialLog.setAsset(newAsset);
         initialLog.setType("BUY");
-        initialLog.setValueAtTime(stockPriceUsd.multiply(sharesQuantity));
+        initialLog.setValueAtTime(purchase.valueUsd());
         transactionRepository.save(initialLog);
 
+        // --- 8. Keep the running portfolio totals in step ---
+        portfolioValuationService.onAssetBought(principal.id(), newAsset, initialLog.getValueAtTime());
+
         return ResponseEntity.ok(Map.of(
                 "message", "Asset purchased successfully!",
-                "sharesOwned", sharesQuantity,
-                "stockPrice", stockPriceUsd,
-                "investedUsd", investedAmountUsd,
+                "sharesOwned", purchase.shares(),
+                "stockPrice", purchase.priceUsd(),
+                "investedUsd", purchase.investedUsd(),
                 "exchangeRateLocked", usdRate
         ));
     }
 
-    // --- 2. GET ALL ASSETS ---
+    // --- 1b. IMPORT LOTS FROM CSV (streamed, written in batches) ---
+    // Header: ticker,quantity[,price][,date][,currency][,exchangeRate][,name][,assetType] - see HoldingsImportService
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain", "application/octet-stream"})
+    public ResponseEntity<?> importAssets(@AuthenticationPrincipal AuthenticatedUser user,
+                                          InputStream csv) throws IOException {
+        try {
+            return ResponseEntity.ok(holdingsImportService.importCsv(user.id(), csv));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // --- 2. GET ALL ASSETS (paged, lean DTOs) ---
+    // Sort by value | ticker | purchaseDate. The next page's cursor comes back in the X-Next-Cursor header.
     @GetMapping
-    public List<Asset> getUserAssets() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        AppUser user = userRepository.findByEmail(email).orElseThrow();
-        return assetRepository.findByUserId(user.getId());
+    public ResponseEntity<?> getUserAssets(@AuthenticationPrincipal AuthenticatedUser user,
+                                           @RequestParam(defaultValue = "purchaseDate") String sort,
+                                           @RequestParam(defaultValue = "asc") String direction,
+                                           @RequestParam(defaultValue = "100") int limit,
+                                           @RequestParam(required = false) String cursor) {
+        AssetSort assetSort = switch (sort) {
+            case "value" -> AssetSort.VALUE;
+            case "ticker" -> AssetSort.TICKER;
+            case "purchaseDate" -> AssetSort.PURCHASE_DATE;
+            default -> null;
+        };
+        if (assetSort == null) {
+            return ResponseEntity.badRequest().body("Unknown sort: " + sort + " (use value, ticker or purchaseDate)");
+        }
+        boolean ascending = !"desc".equalsIgnoreCase(direction);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        Object afterKey = null;
+        Long afterId = null;
+        if (cursor != null) {
+            try {
+                PageCursor after = PageCursor.decode(cursor);
+                afterKey = parseSortKey(assetSort, after.key());
+                afterId = after.id();
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body("Invalid cursor");
+            }
+        }
+
+        // Ask for one extra row to know whether there is a next page
+        List<AssetDTO> page = assetRepository.findPage(user.id(), assetSort, ascending, afterKey, afterId, pageSize + 1);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() > pageSize) {
+            page = page.subList(0, pageSize);
+            AssetDTO last = page.get(pageSize - 1);
+            response.header("X-Next-Cursor", new PageCursor(sortKeyOf(assetSort, last), last.getId()).encode());
+        }
+        return response.body(page);
     }
 
-    // --- 3. GET ASSET HISTORY (NEW: THIS FIXES THE GRAPH) ---
+    private static String sortKeyOf(AssetSort sort, AssetDTO asset) {
+        return switch (sort) {
+            case VALUE -> asset.getValue().toPlainString();
+            case TICKER -> asset.getTicker();
+            case PURCHASE_DATE -> (asset.getPurchaseDate() != null
+                    ? asset.getPurchaseDate() : AssetRepositoryCustomImpl.NO_DATE).toString();
+        };
+    }
+
+    private static Object parseSortKey(AssetSort sort, String key) {
+        return switch (sort) {
+            case VALUE -> new BigDecimal(key);
+            case TICKER -> key;
+            case PURCHASE_DATE -> LocalDateTime.parse(key);
+        };
+    }
+
+    // --- 3. GET ASSET HISTORY (chart-sized) ---
+    // With ?bucket=hour|day|week (and optional from/to): first/last/min/max value per bucket, oldest first.
+    // Without: raw rows, newest first, paged through the X-Next-Cursor header.
     @GetMapping("/{id}/history")
-    public ResponseEntity<?> getAssetHistory(@PathVariable Long id) {
-        // Fetch the transaction history for the specific asset
-        List<Transaction> history = transactionRepository.findByAssetIdOrderByTimestampDesc(id);
-        return ResponseEntity.ok(history);
+    public ResponseEntity<?> getAssetHistory(@PathVariable Long id,
+                                             @RequestParam(required = false) String bucket,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                             @RequestParam(defaultValue = "500") int limit,
+                                             @RequestParam(required = false) String cursor) {
+        if (bucket != null) {
+            try {
+                return ResponseEntity.ok(assetHistoryService.getBuckets(id, AssetHistoryService.Bucket.parse(bucket), from, to));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime beforeTime = null;
+        Long beforeId = null;
+        if (cursor != null) {
+            try {
+                PageCursor before = PageCursor.decode(cursor);
+                beforeTime = LocalDateTime.parse(before.key());
+                beforeId = before.id();
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body("Invalid cursor");
+            }
+        }
+
+        List<HistoryPointDTO> page = assetHistoryService.getRawPage(id, beforeTime, beforeId, pageSize + 1);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() > pageSize) {
+            page = page.subList(0, pageSize);
+            HistoryPointDTO last = page.get(pageSize - 1);
+            long lastId = last.getId() != null ? last.getId() : AssetHistoryService.SERIES_POINT_ID;
+            response.header("X-Next-Cursor", new PageCursor(last.getTimestamp().toString(), lastId).encode());
+        }
+        return response.body(page);
     }
 
     // --- 4. REFRESH PRICE ---
@@ -134,12 +268,15 @@ public class AssetController {
             asset.setLastUpdated(LocalDateTime.now());
             assetRepository.save(asset);
 
-            // --- FIX: Log the refresh for the history graph ---
-            Transaction refreshLog = new Transaction();
-            refreshLog.setAsset(asset);
-            refreshLog.setType("PRICE_REFRESH");
-            refreshLog.setValueAtTime(currentPrice.multiply(asset.getQuantity()));
-            transactionRepository.save(refreshLog);
+            // --- Log the refresh for the history graph (valuation series, not a transaction row) ---
+            //     Best effort, like "refresh all": a failed log never fails the refresh that was just saved
+            Long value = ValuationSeriesStore.scaledValueOf(asset, currentPrice);
+            if (value != null) {
+                valuationSeriesStore.append(asset.getId(), System.currentTimeMillis(), value);
+            }
+
+            portfolioValuationService.onPriceRefreshed(asset.getUser().getId(), asset.getId(), currentPrice);
+            eventPublisher.publishEvent(new PriceUpdatedEvent(asset.getTicker(), currentPrice));
 
             return ResponseEntity.ok(Map.of(
                     "ticker", asset.getTicker(),
@@ -152,10 +289,21 @@ public class AssetController {
         return ResponseEntity.badRequest().body("Could not fetch live price.");
     }
 
-    // --- 5. DELETE ASSET ---
+    // --- 5. REFRESH ALL HOLDINGS (one request instead of one per asset) ---
+    @PutMapping("/refresh")
+    public ResponseEntity<?> refreshAllAssets(@AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(assetRefreshService.refreshAll(user.id()));
+    }
+
+    // --- 6. DELETE ASSET ---
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteAsset(@PathVariable Long id) {
-        assetRepository.deleteById(id);
+        assetRepository.findById(id).ifPresent(asset -> {
+            // Series first: if that fails the asset is still there to delete again
+            valuationSeriesStore.delete(asset.getId());
+            assetRepository.delete(asset);
+            portfolioValuationService.onAssetDeleted(asset.getUser().getId(), asset.getId());
+        });
         return ResponseEntity.ok(Map.of("message", "Asset deleted successfully"));
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.assetcompass.tracker.controllers;
 import com.assetcompass.tracker.models.AppUser;
 import com.assetcompass.tracker.repositories.AppUserRepository;
 import com.assetcompass.tracker.security.JwtUtil;
+import com.assetcompass.tracker.security.PrincipalCache;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -20,15 +21,18 @@ public class AuthController {
     private final AppUserRepository userRepository;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     public AuthController(AuthenticationManager authenticationManager,
                           AppUserRepository userRepository,
                           JwtUtil jwtUtil,
-                          PasswordEncoder passwordEncoder) {
+                          PasswordEncoder passwordEncoder,
+                          PrincipalCache principalCache) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
     }
 
     // --- 1. REGISTER (Instant Access) ---
@@ -44,6 +48,7 @@ public class AuthController {
         user.setRole("USER");
 
         userRepository.save(user);
+        principalCache.invalidate(user.getEmail());
 
         return ResponseEntity.ok(Map.of(
                 "message", "Registration successful! You can now log in."
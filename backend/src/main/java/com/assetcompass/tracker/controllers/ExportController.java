@@ -0,0 +1,120 @@
+package com.assetcompass.tracker.controllers;
+
+import com.assetcompass.tracker.security.AuthenticatedUser;
+import com.assetcompass.tracker.services.PortfolioExportService;
+import com.assetcompass.tracker.services.PortfolioExportService.Format;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Downloads of a user's data, streamed row by row (?format=csv|ndjson)
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private final PortfolioExportService exportService;
+
+    public ExportController(PortfolioExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    // 1. All holdings
+    @GetMapping("/assets")
+    public ResponseEntity<StreamingResponseBody> exportAssets(@AuthenticationPrincipal AuthenticatedUser user,
+                                          @RequestParam(defaultValue = "csv") String format,
+                                          HttpServletRequest request) {
+        return stream(request, "assets", format, (exportFormat, out) -> exportService.exportAssets(user.id(), exportFormat, out));
+    }
+
+    // 2. Full history of every holding (transactions + price refreshes)
+    @GetMapping("/history")
+    public ResponseEntity<StreamingResponseBody> exportHistory(@AuthenticationPrincipal AuthenticatedUser user,
+                                           @RequestParam(defaultValue = "csv") String format,
+                                           HttpServletRequest request) {
+        return stream(request, "history", format, (exportFormat, out) -> exportService.exportHistory(user.id(), exportFormat, out));
+    }
+
+    private interface Export {
+        void write(Format format, OutputStream out) throws IOException;
+    }
+
+    // Typed as StreamingResponseBody (not "?"), otherwise Spring looks for a message converter instead of streaming
+    private ResponseEntity<StreamingResponseBody> stream(HttpServletRequest request, String name, String format, Export export) {
+        Format exportFormat;
+        try {
+            exportFormat = Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            return plainText(ResponseEntity.badRequest(), e.getMessage());
+        }
+
+        // Every export holds a DB connection until the download ends - turn extra ones away instead of queueing
+        if (!exportService.tryAcquireSlot()) {
+            return plainText(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30"),
+                    "Too many exports running, try again shortly");
+        }
+
+        // The body may never run (async timeout or error while still queued, client gone before dispatch),
+        // so the slot also goes back from the async callbacks - whichever comes first
+        SlotRelease slot = new SlotRelease();
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(SlotRelease.class.getName(), slot);
+        StreamingResponseBody body = out -> {
+            try {
+                export.write(exportFormat, out);
+            } finally {
+                slot.release();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"asset-compass-" + name + "." + exportFormat.extension() + "\"")
+                .body(body);
+    }
+
+    // Gives the export slot back exactly once
+    private final class SlotRelease implements CallableProcessingInterceptor {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                exportService.releaseSlot();
+            }
+        }
+
+        @Override
+        public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) {
+            release();
+            return RESULT_NONE;
+        }
+
+        @Override
+        public <T> Object handleError(NativeWebRequest request, Callable<T> task, Throwable t) {
+            release();
+            return RESULT_NONE;
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            release();
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> plainText(ResponseEntity.BodyBuilder response, String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        return response.contentType(MediaType.TEXT_PLAIN).body(out -> out.write(bytes));
+    }
+}
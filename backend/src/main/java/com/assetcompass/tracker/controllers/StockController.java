@@ -3,7 +3,7 @@ package com.assetcompass.tracker.controllers;
 import com.assetcompass.tracker.services.CurrencyService;
 import com.assetcompass.tracker.services.StockService;
 import org.springframework.web.bind.annotation.*;
-import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -18,10 +18,13 @@ public class StockController {
         this.currencyService = currencyService;
     }
 
-    // 1. Get Live USD/ZAR Rate
+    // 1. Get Live USD/ZAR Rate (served from memory, refreshed in the background)
     @GetMapping("/rate")
-    public Map<String, BigDecimal> getExchangeRate() {
-        return Map.of("rate", currencyService.getUsdToZarRate());
+    public Map<String, Object> getExchangeRate() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("rate", currencyService.getUsdToZarRate());
+        currencyService.getRateAge().ifPresent(age -> response.put("ageSeconds", age.toSeconds()));
+        return response;
     }
 
     // 2. Search for Real Stocks
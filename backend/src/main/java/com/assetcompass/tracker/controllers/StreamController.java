@@ -0,0 +1,62 @@
+package com.assetcompass.tracker.controllers;
+
+import com.assetcompass.tracker.repositories.AssetRepository;
+import com.assetcompass.tracker.security.AuthenticatedUser;
+import com.assetcompass.tracker.services.PriceStreamService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    private final PriceStreamService priceStreamService;
+    private final AssetRepository assetRepository;
+
+    @Value("${app.stream.max-tickers:200}")
+    private int maxTickers;
+
+    public StreamController(PriceStreamService priceStreamService, AssetRepository assetRepository) {
+        this.priceStreamService = priceStreamService;
+        this.assetRepository = assetRepository;
+    }
+
+    // 1. Live prices + net worth (Server-Sent Events). Defaults to every ticker the user holds.
+    //    Typed as SseEmitter (not "?"), otherwise Spring looks for a message converter instead of streaming
+    @GetMapping(value = "/prices", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamPrices(@AuthenticationPrincipal AuthenticatedUser user,
+                                          @RequestParam(required = false) String tickers) {
+        List<String> subscribed = tickers == null || tickers.isBlank()
+                ? assetRepository.findDistinctTickersByUserId(user.id())
+                : Arrays.stream(tickers.split(","))
+                        .map(ticker -> ticker.trim().toUpperCase(Locale.ROOT))
+                        .filter(ticker -> !ticker.isEmpty())
+                        .distinct()
+                        .toList();
+
+        if (subscribed.size() > maxTickers) {
+            // The 400 goes out as one "error" event on an already completed stream - nothing is subscribed
+            SseEmitter rejected = new SseEmitter();
+            try {
+                rejected.send(SseEmitter.event().name("error")
+                        .data(Map.of("message", "Too many tickers (max " + maxTickers + ")"), MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rejected.complete();
+            return ResponseEntity.badRequest().body(rejected);
+        }
+        return ResponseEntity.ok(priceStreamService.subscribe(user.id(), subscribed));
+    }
+}
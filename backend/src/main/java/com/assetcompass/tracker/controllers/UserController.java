@@ -1,72 +1,47 @@
 package com.assetcompass.tracker.controllers;
 
-import com.assetcompass.tracker.models.AppUser;
-import com.assetcompass.tracker.models.Asset;
-import com.assetcompass.tracker.repositories.AppUserRepository;
-import com.assetcompass.tracker.repositories.AssetRepository;
+import com.assetcompass.tracker.security.AuthenticatedUser;
 import com.assetcompass.tracker.services.CurrencyService;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.assetcompass.tracker.services.PortfolioValuationService;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
 public class UserController {
 
-    private final AppUserRepository userRepository;
-    private final AssetRepository assetRepository;
+    private final PortfolioValuationService portfolioValuationService;
     private final CurrencyService currencyService;
 
     // Inject repositories and services
-    public UserController(AppUserRepository userRepository,
-                          AssetRepository assetRepository,
+    public UserController(PortfolioValuationService portfolioValuationService,
                           CurrencyService currencyService) {
-        this.userRepository = userRepository;
-        this.assetRepository = assetRepository;
+        this.portfolioValuationService = portfolioValuationService;
         this.currencyService = currencyService;
     }
 
     @GetMapping("/me")
-    public Map<String, Object> getCurrentUser() {
-        // 1. Get Logged-in User
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
+    public Map<String, Object> getCurrentUser(@AuthenticationPrincipal AuthenticatedUser user) {
+        // 1. Logged-in User (already resolved by the JWT filter - no extra DB lookup)
 
-        AppUser user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        // 2. Calculate Net Worth Dynamically
-        List<Asset> assets = assetRepository.findByUserId(user.getId());
-
-        BigDecimal netWorthZAR = BigDecimal.ZERO;
-        BigDecimal usdRate = currencyService.getUsdToZarRate(); // Fetch live rate (e.g., 18.25)
-
-        for (Asset asset : assets) {
-            // Calculate Asset Value: Quantity * Buy Price
-            BigDecimal assetValue = asset.getQuantity().multiply(asset.getBuyPrice());
-
-            // Convert to ZAR if the asset is in USD
-            if ("USD".equalsIgnoreCase(asset.getCurrency())) {
-                netWorthZAR = netWorthZAR.add(assetValue.multiply(usdRate));
-            } else {
-                // If it's already ZAR (future feature), just add it
-                netWorthZAR = netWorthZAR.add(assetValue);
-            }
-        }
+        // 2. Net Worth from the running portfolio totals (no per-asset loop), converted at the live rate
+        BigDecimal usdRate = currencyService.getUsdToZarRate(); // Cached live rate (e.g., 18.25)
+        BigDecimal netWorthZAR = portfolioValuationService.getNetWorthZar(user.id(), usdRate);
 
         // 3. Return User Data + Calculated Net Worth
         return Map.of(
-                "id", user.getId(),
-                "email", user.getEmail(),
-                "fullName", user.getFullName(),
-                "role", user.getRole(),
+                "id", user.id(),
+                "email", user.email(),
+                "fullName", user.fullName(),
+                "role", user.role(),
                 "netWorthZAR", netWorthZAR, // This fixes the "R0.00" issue!
+                "costBasisZAR", portfolioValuationService.getCostBasisZar(user.id(), usdRate),
+                "allocationZAR", portfolioValuationService.getAllocationZar(user.id(), usdRate),
                 "exchangeRate", usdRate
         );
     }
@@ -0,0 +1,55 @@
+package com.assetcompass.tracker.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Typed shapes of the AlphaVantage payloads we read (everything else in them is ignored).
+// When the quota is hit AlphaVantage still answers 200, with only a "Note" / "Information" message.
+public final class AlphaVantageResponses {
+
+    private AlphaVantageResponses() {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record GlobalQuoteResponse(@JsonProperty("Global Quote") GlobalQuote quote,
+                                      @JsonProperty("Note") String note,
+                                      @JsonProperty("Information") String information) {
+
+        public BigDecimal price() {
+            return quote == null ? null : quote.price();
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record GlobalQuote(@JsonProperty("01. symbol") String symbol,
+                              @JsonProperty("05. price") BigDecimal price) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ExchangeRateResponse(@JsonProperty("Realtime Currency Exchange Rate") ExchangeRate exchangeRate,
+                                       @JsonProperty("Note") String note,
+                                       @JsonProperty("Information") String information) {
+
+        public BigDecimal rate() {
+            return exchangeRate == null ? null : exchangeRate.rate();
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ExchangeRate(@JsonProperty("1. From_Currency Code") String from,
+                               @JsonProperty("3. To_Currency Code") String to,
+                               @JsonProperty("5. Exchange Rate") BigDecimal rate) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record SymbolSearchResponse(@JsonProperty("bestMatches") List<SymbolSearchMatch> bestMatches,
+                                       @JsonProperty("Note") String note,
+                                       @JsonProperty("Information") String information) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record SymbolSearchMatch(@JsonProperty("1. symbol") String symbol,
+                                    @JsonProperty("2. name") String name,
+                                    @JsonProperty("3. type") String type,
+                                    @JsonProperty("4. region") String region,
+                                    @JsonProperty("8. currency") String currency) {}
+}
@@ -1,15 +1,27 @@
 package com.assetcompass.tracker.dtos;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// What GET /api/assets sends back: the asset's own columns only.
+// Notice: NO user (and so no password hash) in here! Built straight from a query, not from the entity.
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class AssetDTO {
     private Long id;
     private String name;
-    private String type;
-    private BigDecimal value;
+    private String ticker;
+    private String assetType;
+    private BigDecimal quantity;
+    private BigDecimal buyPrice;
+    private BigDecimal exchangeRateAtBuy;
     private String currency;
+    private BigDecimal value;           // quantity * buyPrice, computed by the database
+    private LocalDateTime purchaseDate;
     private LocalDateTime lastUpdated;
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.assetcompass.tracker.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One chart point of a bucketed history: the asset's value over [bucketStart, bucketStart + bucket)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryBucketDTO {
+    private LocalDateTime bucketStart;
+    private BigDecimal first;
+    private BigDecimal last;
+    private BigDecimal min;
+    private BigDecimal max;
+    private long count;
+}
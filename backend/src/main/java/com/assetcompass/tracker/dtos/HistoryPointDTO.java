@@ -0,0 +1,19 @@
+package com.assetcompass.tracker.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One raw history entry: a BUY/SELL transaction, or a price refresh from the valuation series (id is null)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPointDTO {
+    private Long id;
+    private String type;
+    private BigDecimal valueAtTime;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,24 @@
+package com.assetcompass.tracker.dtos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset cursor handed to the client: the sort key + id of the last row on a page.
+// The client just echoes it back to get the next page.
+public record PageCursor(String key, Long id) {
+
+    public String encode() {
+        String raw = id + ":" + (key == null ? "" : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.indexOf(':');
+            return new PageCursor(raw.substring(split + 1), Long.parseLong(raw.substring(0, split)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.assetcompass.tracker.models;
 
+import com.assetcompass.tracker.util.FixedPoint;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 @Entity
 @Table(name = "assets")
@@ -53,9 +55,17 @@ public class Asset {
     @JoinColumn(name = "user_id", nullable = false)
     private AppUser user;
 
-    // Helper to calculate current Total Value (Live Price * Quantity)
+    // Helper to calculate current Total Value (Live Price * Quantity) - exact, as the API has always returned it
     public BigDecimal calculateCurrentValue(BigDecimal livePrice) {
         if (livePrice == null) return BigDecimal.ZERO;
         return livePrice.multiply(this.quantity);
     }
+
+    // The same value on a FixedPoint price (PRICE_SCALE), as a FixedPoint value at the given scale (rounded HALF_UP),
+    // for the valuation series.
+    // Throws ArithmeticException when the quantity or the value doesn't fit a long
+    public long calculateCurrentValue(long livePrice, int valueScale) {
+        return FixedPoint.multiply(FixedPoint.fromDecimal(this.quantity, FixedPoint.QUANTITY_SCALE, RoundingMode.HALF_UP),
+                FixedPoint.QUANTITY_SCALE, livePrice, FixedPoint.PRICE_SCALE, valueScale, RoundingMode.HALF_UP);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.assetcompass.tracker.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Latest known price per ticker, shared by every user who holds it.
+// Written by the background MarketDataRefresher, read instead of calling AlphaVantage again.
+@Entity
+@Table(name = "market_prices")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarketPrice {
+
+    @Id
+    private String ticker;          // e.g., "AAPL" (always upper-case)
+
+    @Column(nullable = false, precision = 20, scale = 4)
+    private BigDecimal price;       // e.g., $210.00 (Price in USD)
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -7,7 +7,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+        indexes = {
+                @Index(name = "idx_transactions_asset_time", columnList = "asset_id, timestamp"),
+                @Index(name = "idx_transactions_type_time", columnList = "type, timestamp")
+        })
 @Data
 public class Transaction {
 
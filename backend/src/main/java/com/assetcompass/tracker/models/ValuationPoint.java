@@ -0,0 +1,36 @@
+package com.assetcompass.tracker.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.io.Serializable;
+
+// One point of an asset's valuation series (a price refresh), 3 BIGINTs per row.
+// Written and read through ValuationSeriesStore with plain JDBC - the entity only defines the table.
+@Entity
+@Table(name = "valuation_points")
+@IdClass(ValuationPoint.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValuationPoint {
+
+    @Id
+    @Column(name = "asset_id")
+    private Long assetId;
+
+    @Id
+    @Column(name = "recorded_at")
+    private Long recordedAt;        // Epoch millis, strictly increasing per asset
+
+    @Column(name = "scaled_value", nullable = false)
+    private Long scaledValue;       // Value x 10^4 (ValuationSeriesStore.SCALE)
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long assetId;
+        private Long recordedAt;
+    }
+}
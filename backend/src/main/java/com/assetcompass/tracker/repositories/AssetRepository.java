@@ -2,9 +2,36 @@ package com.assetcompass.tracker.repositories;
 
 import com.assetcompass.tracker.models.Asset;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
-public interface AssetRepository extends JpaRepository<Asset, Long> {
+public interface AssetRepository extends JpaRepository<Asset, Long>, AssetRepositoryCustom {
     // Find all assets belonging to a specific user
     List<Asset> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    // The distinct tickers one user holds (what their live price stream subscribes to)
+    @Query("SELECT DISTINCT UPPER(a.ticker) FROM Asset a WHERE a.user.id = :userId")
+    List<String> findDistinctTickersByUserId(@Param("userId") Long userId);
+
+    // Every distinct ticker across ALL users, most-held first (drives the background refresher)
+    @Query("SELECT UPPER(a.ticker) AS ticker, COUNT(a) AS holdings FROM Asset a " +
+           "GROUP BY UPPER(a.ticker) ORDER BY COUNT(a) DESC")
+    List<TickerHoldings> countHoldingsByTicker();
+
+    // Re-price every holding of a ticker in one statement
+    @Modifying
+    @Query("UPDATE Asset a SET a.buyPrice = :price, a.lastUpdated = :updatedAt WHERE UPPER(a.ticker) = :ticker")
+    int updatePriceForTicker(@Param("ticker") String ticker,
+                             @Param("price") BigDecimal price,
+                             @Param("updatedAt") LocalDateTime updatedAt);
+
+    interface TickerHoldings {
+        String getTicker();
+        long getHoldings();
+    }
+}
@@ -0,0 +1,23 @@
+package com.assetcompass.tracker.repositories;
+
+import com.assetcompass.tracker.dtos.AssetDTO;
+
+import java.util.List;
+
+// Queries that Spring Data can't derive from a method name (implemented in AssetRepositoryCustomImpl)
+public interface AssetRepositoryCustom {
+
+    enum AssetSort {
+        VALUE,
+        TICKER,
+        PURCHASE_DATE
+    }
+
+    /**
+     * One page of a user's assets as DTOs, using keyset pagination:
+     * pass the sort key and id of the last row you got to get the rows after it.
+     * Returns up to "limit" rows.
+     */
+    List<AssetDTO> findPage(Long userId, AssetSort sort, boolean ascending,
+                            Object afterKey, Long afterId, int limit);
+}
@@ -0,0 +1,57 @@
+package com.assetcompass.tracker.repositories;
+
+import com.assetcompass.tracker.dtos.AssetDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class AssetRepositoryCustomImpl implements AssetRepositoryCustom {
+
+    // Stand-in for a missing purchase date, so the sort key is never NULL
+    public static final LocalDateTime NO_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AssetDTO> findPage(Long userId, AssetSort sort, boolean ascending,
+                                   Object afterKey, Long afterId, int limit) {
+        String key = switch (sort) {
+            case VALUE -> "a.quantity * a.buyPrice";
+            case TICKER -> "a.ticker";
+            case PURCHASE_DATE -> "COALESCE(a.purchaseDate, :noDate)";
+        };
+        String direction = ascending ? "ASC" : "DESC";
+        String after = ascending ? ">" : "<";
+
+        // Only the asset's own columns - no join to app_users
+        StringBuilder jpql = new StringBuilder()
+                .append("SELECT new com.assetcompass.tracker.dtos.AssetDTO(")
+                .append("a.id, a.name, a.ticker, a.assetType, a.quantity, a.buyPrice, a.exchangeRateAtBuy, ")
+                .append("a.currency, a.quantity * a.buyPrice, a.purchaseDate, a.lastUpdated) ")
+                .append("FROM Asset a WHERE a.user.id = :userId ");
+
+        // Keyset: everything strictly after the last row of the previous page (id breaks ties)
+        if (afterKey != null && afterId != null) {
+            jpql.append("AND (").append(key).append(" ").append(after).append(" :afterKey ")
+                .append("OR (").append(key).append(" = :afterKey AND a.id ").append(after).append(" :afterId)) ");
+        }
+        jpql.append("ORDER BY ").append(key).append(" ").append(direction)
+            .append(", a.id ").append(direction);
+
+        TypedQuery<AssetDTO> query = entityManager.createQuery(jpql.toString(), AssetDTO.class)
+                .setParameter("userId", userId)
+                .setMaxResults(limit);
+        if (sort == AssetSort.PURCHASE_DATE) {
+            query.setParameter("noDate", NO_DATE);
+        }
+        if (afterKey != null && afterId != null) {
+            query.setParameter("afterKey", afterKey);
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,7 @@
+package com.assetcompass.tracker.repositories;
+
+import com.assetcompass.tracker.models.MarketPrice;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MarketPriceRepository extends JpaRepository<MarketPrice, String> {
+}
@@ -1,10 +1,50 @@
 package com.assetcompass.tracker.repositories;
 
 import com.assetcompass.tracker.models.Transaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     // Find history for a specific asset, newest first
     List<Transaction> findByAssetIdOrderByTimestampDesc(Long assetId);
-}
\ No newline at end of file
+
+    // Cost basis per asset: what was paid in BUY transactions, as [assetId, total]
+    @Query("SELECT t.asset.id, SUM(t.valueAtTime) FROM Transaction t " +
+           "WHERE t.asset.user.id = :userId AND t.type = 'BUY' GROUP BY t.asset.id")
+    List<Object[]> sumBuyValueByAssetForUser(@Param("userId") Long userId);
+
+    // --- RAW HISTORY PAGES (newest first, keyset on timestamp + id) ---
+
+    @Query("SELECT t FROM Transaction t WHERE t.asset.id = :assetId ORDER BY t.timestamp DESC, t.id DESC")
+    List<Transaction> findHistoryPage(@Param("assetId") Long assetId, Limit limit);
+
+    @Query("SELECT t FROM Transaction t WHERE t.asset.id = :assetId " +
+           "AND (t.timestamp < :beforeTime OR (t.timestamp = :beforeTime AND t.id < :beforeId)) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    List<Transaction> findHistoryPageBefore(@Param("assetId") Long assetId,
+                                            @Param("beforeTime") LocalDateTime beforeTime,
+                                            @Param("beforeId") Long beforeId,
+                                            Limit limit);
+
+    // --- BUCKETED HISTORY (computed by Postgres) ---
+
+    // One row per bucket as [bucketStart, first, last, min, max, count, firstAt, lastAt], oldest first.
+    // bucket must be a date_trunc unit ('hour', 'day', 'week') - the caller validates it.
+    @Query(value = "SELECT date_trunc(:bucket, t.timestamp) AS bucket_start, " +
+                   "(array_agg(t.value_at_time ORDER BY t.timestamp, t.id))[1], " +
+                   "(array_agg(t.value_at_time ORDER BY t.timestamp DESC, t.id DESC))[1], " +
+                   "MIN(t.value_at_time), MAX(t.value_at_time), COUNT(*), MIN(t.timestamp), MAX(t.timestamp) " +
+                   "FROM transactions t " +
+                   "WHERE t.asset_id = :assetId AND t.timestamp >= :from AND t.timestamp < :to " +
+                   "GROUP BY 1 ORDER BY 1",
+           nativeQuery = true)
+    List<Object[]> findHistoryBuckets(@Param("assetId") Long assetId,
+                                      @Param("bucket") String bucket,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to);
+}
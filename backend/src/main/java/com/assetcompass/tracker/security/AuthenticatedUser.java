@@ -0,0 +1,35 @@
+package com.assetcompass.tracker.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The logged-in user as seen by controllers (@AuthenticationPrincipal).
+ * Resolved once per request by the JWT filter, so controllers don't need to look the user up again.
+ * No password hash in here on purpose.
+ */
+public record AuthenticatedUser(Long id, String email, String fullName, String role) implements Principal {
+
+    // The JWT filter also leaves the user on the request, for code that runs after Spring Security has
+    // cleared its context (e.g. RequestTimingFilter finishing the response)
+    public static final String REQUEST_ATTRIBUTE = AuthenticatedUser.class.getName();
+
+    // Keeps auth.getName() returning the email, like before
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+
+    public List<GrantedAuthority> authorities() {
+        if (role == null) return Collections.emptyList();
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+}
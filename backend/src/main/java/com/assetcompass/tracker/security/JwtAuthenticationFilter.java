@@ -1,13 +1,12 @@
 package com.assetcompass.tracker.security;
 
-import com.assetcompass.tracker.services.CustomUserDetailsService;
+import com.assetcompass.tracker.config.RequestTiming;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,42 +17,47 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, PrincipalCache principalCache) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
+        // Verification + principal lookup show up as "auth" in Server-Timing
+        try (RequestTiming.Phase phase = RequestTiming.start("auth")) {
+            authenticate(request);
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request) {
         final String authorizationHeader = request.getHeader("Authorization");
 
         String username = null;
-        String jwt = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(jwt);
-            } catch (Exception e) {
-                // Token invalid or expired - we don't set authentication context
-                // Spring Security will handle the 403 later if auth is required
-            }
+            // Verifies signature + expiry in a single parse (or a cache hit).
+            // Token invalid or expired -> null, we don't set authentication context
+            // and Spring Security will handle the 403 later if auth is required
+            username = jwtUtil.validateAndExtractUsername(authorizationHeader.substring(7));
         }
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            // Resolved once here (usually from cache); controllers read it via @AuthenticationPrincipal
+            AuthenticatedUser principal = principalCache.resolve(username);
 
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                        principal, null, principal.authorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, principal);
             }
         }
-        chain.doFilter(request, response);
     }
 }
\ No newline at end of file
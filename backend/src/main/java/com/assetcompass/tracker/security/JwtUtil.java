@@ -1,13 +1,22 @@
 package com.assetcompass.tracker.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
@@ -18,6 +27,20 @@ public class JwtUtil {
     // To persist tokens across deploys, you would load a base64 encoded string from application.properties.
     private static final Key SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
 
+    // Built once and shared: a JwtParser is immutable and thread-safe
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(SECRET_KEY)
+            .build();
+
+    // Tokens we already verified, keyed by SHA-256 of the token, kept until they expire.
+    // Saves re-parsing and re-checking the HMAC on every request from the same session.
+    private record VerifiedToken(String username, long expiresAtMillis) {}
+
+    private final ConcurrentHashMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -32,15 +55,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return PARSER.parseClaimsJws(token).getBody();
     }
 
     public String generateToken(String username) {
@@ -53,7 +68,63 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return username.equals(validateAndExtractUsername(token));
+    }
+
+    /**
+     * Verifies the token (signature + expiry) with a single parse and returns its username,
+     * or null if the token is invalid or expired. Verified tokens are remembered until they expire.
+     */
+    public String validateAndExtractUsername(String token) {
+        long now = System.currentTimeMillis();
+        String key = hash(token);
+
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                return cached.username();
+            }
+            verifiedTokens.remove(key);
+            return null;
+        }
+
+        Claims claims;
+        try {
+            // Throws on a bad signature, a malformed token or an expired one
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            return null;
+        }
+
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            evict(now);
+        }
+        verifiedTokens.put(key, new VerifiedToken(claims.getSubject(), claims.getExpiration().getTime()));
+        return claims.getSubject();
+    }
+
+    // Drops expired tokens; if we're still full, drops an arbitrary tenth of the cache
+    private void evict(long now) {
+        verifiedTokens.values().removeIf(token -> token.expiresAtMillis() <= now);
+
+        int toDrop = verifiedTokens.size() - (verifiedCacheSize * 9 / 10);
+        Iterator<String> keys = verifiedTokens.keySet().iterator();
+        while (toDrop-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package com.assetcompass.tracker.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Lets Prometheus scrape /actuator/prometheus with a long-lived static token (app.metrics.scrape-token)
+ * instead of an admin JWT that expires after a few hours.
+ *
+ * The token only grants ROLE_METRICS, which opens the metrics endpoint and nothing else.
+ * Blank token = disabled (admins can still read the metrics with their JWT).
+ */
+@Component
+public class MetricsScrapeTokenFilter extends OncePerRequestFilter {
+
+    public static final String SCRAPE_PATH = "/actuator/prometheus";
+
+    private final byte[] scrapeToken;
+
+    public MetricsScrapeTokenFilter(@Value("${app.metrics.scrape-token:}") String scrapeToken) {
+        this.scrapeToken = scrapeToken.isBlank() ? null : scrapeToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return scrapeToken == null || !SCRAPE_PATH.equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorizationHeader = request.getHeader("Authorization");
+
+        // Constant-time compare, so the token can't be guessed byte by byte from response times
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && MessageDigest.isEqual(scrapeToken, authorizationHeader.substring(7).getBytes(StandardCharsets.UTF_8))) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "metrics-scraper", null, List.of(new SimpleGrantedAuthority("ROLE_METRICS"))));
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,87 @@
+package com.assetcompass.tracker.security;
+
+import com.assetcompass.tracker.models.AppUser;
+import com.assetcompass.tracker.repositories.AppUserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, TTL-based cache of email -> AuthenticatedUser.
+ * Without it every authenticated request costs a findByEmail round trip on our small connection pool.
+ * Call invalidate() whenever a user is created or changed.
+ * Lookups are counted as "cache.lookups" (cache=principals, result=hit|miss).
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entry(AuthenticatedUser user, long loadedAtNanos) {}
+
+    private final AppUserRepository userRepository;
+    private final long ttlNanos;
+    private final int maxSize;
+
+    // Access-ordered, so the least recently seen user is evicted first (guarded by "this")
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PrincipalCache(AppUserRepository userRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.auth.principal-cache.ttl-seconds:300}") long ttlSeconds,
+                          @Value("${app.auth.principal-cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PrincipalCache.this.maxSize;
+            }
+        };
+        this.hits = meterRegistry.counter("cache.lookups", "cache", "principals", "result", "hit");
+        this.misses = meterRegistry.counter("cache.lookups", "cache", "principals", "result", "miss");
+        Gauge.builder("cache.size", this, PrincipalCache::size).tag("cache", "principals").register(meterRegistry);
+    }
+
+    /**
+     * Returns the user for this email, or null if there is no such user.
+     */
+    public AuthenticatedUser resolve(String email) {
+        synchronized (this) {
+            Entry entry = entries.get(email);
+            if (entry != null && System.nanoTime() - entry.loadedAtNanos() <= ttlNanos) {
+                hits.increment();
+                return entry.user();
+            }
+        }
+        misses.increment();
+
+        // Miss: one DB lookup, done outside the lock
+        AppUser appUser = userRepository.findByEmail(email).orElse(null);
+        if (appUser == null) {
+            return null;
+        }
+
+        AuthenticatedUser user = new AuthenticatedUser(
+                appUser.getId(), appUser.getEmail(), appUser.getFullName(), appUser.getRole());
+        synchronized (this) {
+            entries.put(email, new Entry(user, System.nanoTime()));
+        }
+        return user;
+    }
+
+    public synchronized void invalidate(String email) {
+        entries.remove(email);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
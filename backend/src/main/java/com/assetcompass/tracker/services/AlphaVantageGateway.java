@@ -0,0 +1,430 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.services.MarketDataProvider.Priority;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The single way out to AlphaVantage.
+ * Every service submits its query here instead of calling the API directly, so we can:
+ * 1. Stay inside the key's quota with a token bucket (per minute) and a daily cap.
+ * 2. Serve user-facing requests (buy / refresh) before background work (scheduled refreshes, search).
+ * 3. Coalesce identical pending queries into one upstream call.
+ * 4. Report queue depth and how long requests waited (getStats, and the "alphavantage.*" meters).
+ * The HTTP call itself (pooled connections, timeouts, decoding) is MarketDataHttpClient's job.
+ *
+ * A caller waits in two steps: up to the max wait (the configured one, or a shorter one of its own) for its
+ * turn in the queue, then up to its own budget for the HTTP round trip. The two failures are told apart (NotSentException / BudgetExceededException) so the
+ * circuit breakers only ever judge AlphaVantage, never our own queue.
+ */
+@Component
+@ConditionalOnProperty(name = "app.market-data.provider", havingValue = "alphavantage", matchIfMissing = true)
+public class AlphaVantageGateway {
+
+    private final MarketDataHttpClient httpClient;
+    private final TokenBucket minuteBucket;
+    private final int requestsPerMinute;
+    private final int requestsPerDay;
+    private final long maxWaitMillis;
+
+    // --- QUEUE STATE (guarded by "lock") ---
+    private final Object lock = new Object();
+    private final PriorityQueue<PendingRequest> queue = new PriorityQueue<>();
+    private final Map<String, PendingRequest> pendingByQuery = new HashMap<>();
+    private long sequence = 0;
+    private LocalDate quotaDay = LocalDate.now(ZoneOffset.UTC);
+    private int usedToday = 0;
+
+    // --- STATS ---
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder totalWaitMillis = new LongAdder();
+    private final AtomicLong maxWaitMillisSeen = new AtomicLong();
+    private final Timer queueWait;
+
+    private Thread dispatcher;
+    private volatile boolean running = true;
+
+    // The request never left the gateway (queue wait over, daily quota used up, or no request could be built from
+    // the query) - says nothing about AlphaVantage
+    public static class NotSentException extends RuntimeException {
+        public NotSentException(String message) {
+            super(message);
+        }
+    }
+
+    // The caller stopped waiting for the round trip; the request itself carries on until the HTTP timeout
+    public static class BudgetExceededException extends RuntimeException {
+        public BudgetExceededException(long budgetMillis) {
+            super("AlphaVantage call exceeded its " + budgetMillis + "ms budget");
+        }
+    }
+
+    public AlphaVantageGateway(MarketDataHttpClient httpClient,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.alphavantage.requests-per-minute:5}") int requestsPerMinute,
+                               @Value("${app.alphavantage.requests-per-day:25}") int requestsPerDay,
+                               @Value("${app.alphavantage.max-wait-ms:15000}") long maxWaitMillis) {
+        this.httpClient = httpClient;
+        this.minuteBucket = new TokenBucket(requestsPerMinute, requestsPerMinute / 60d);
+        this.requestsPerMinute = requestsPerMinute;
+        this.requestsPerDay = requestsPerDay;
+        this.maxWaitMillis = maxWaitMillis;
+        this.queueWait = Timer.builder("alphavantage.queue.wait")
+                .description("Time a dispatched request spent queued for a rate-limit token")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        registerMeters(meterRegistry);
+    }
+
+    private void registerMeters(MeterRegistry registry) {
+        // Quota left: tokens in the per-minute bucket, and calls left today (NaN when the key has no daily cap)
+        Gauge.builder("alphavantage.quota.remaining", minuteBucket, TokenBucket::available)
+                .tag("window", "minute")
+                .register(registry);
+        Gauge.builder("alphavantage.quota.remaining", this, gateway -> gateway.remainingToday())
+                .tag("window", "day")
+                .register(registry);
+        for (Priority priority : Priority.values()) {
+            Gauge.builder("alphavantage.queue.depth", this, gateway -> gateway.queueDepth(priority))
+                    .tag("priority", priority.name())
+                    .register(registry);
+        }
+        FunctionCounter.builder("alphavantage.requests.coalesced", coalesced, LongAdder::sum).register(registry);
+        FunctionCounter.builder("alphavantage.requests.expired", expired, LongAdder::sum).register(registry);
+    }
+
+    /**
+     * Queues a query (e.g. "function=GLOBAL_QUOTE&symbol=AAPL"), waits for the response and decodes it
+     * into "type" (one of the AlphaVantageResponses records).
+     * Throws if the request could not be served within the configured max wait.
+     */
+    public <T> T fetch(Priority priority, String query, Class<T> type) {
+        return fetch(priority, query, type, maxWaitMillis);
+    }
+
+    /**
+     * Same, but the caller gives up on the HTTP round trip after "budgetMillis" (the wait for a rate-limit
+     * token is bounded by the max wait instead).
+     */
+    public <T> T fetch(Priority priority, String query, Class<T> type, long budgetMillis) {
+        return submit(priority, query, type).await(budgetMillis);
+    }
+
+    /**
+     * Queues a query without blocking. If the same query is already pending, the caller joins it
+     * (and bumps it to the higher of the two priorities).
+     */
+    public <T> Call<T> submit(Priority priority, String query, Class<T> type) {
+        return submit(priority, query, type, maxWaitMillis);
+    }
+
+    /**
+     * Same, but this caller only waits "maxWaitMillis" for its turn (e.g. typeahead search, which would
+     * rather fall back at once than hold a request thread behind the refresher).
+     */
+    public <T> Call<T> submit(Priority priority, String query, Class<T> type, long maxWaitMillis) {
+        Enqueued enqueued = enqueue(priority, query, maxWaitMillis);
+        PendingRequest request = enqueued.request();
+        return new Call<>(request.sent, request.future.thenApply(body -> httpClient.decode(body, type)), maxWaitMillis,
+                enqueued.joined());
+    }
+
+    /**
+     * One caller's view of a queued query. "response" ends with the real outcome of the HTTP call (or
+     * NotSentException), whether or not the caller is still waiting for it.
+     */
+    public final class Call<T> {
+        private final CompletableFuture<Void> sent;
+        private final CompletableFuture<T> response;
+        private final long maxWaitMillis;
+        private final boolean joined;
+
+        private Call(CompletableFuture<Void> sent, CompletableFuture<T> response, long maxWaitMillis, boolean joined) {
+            this.sent = sent;
+            this.response = response;
+            this.maxWaitMillis = maxWaitMillis;
+            this.joined = joined;
+        }
+
+        public CompletableFuture<T> response() {
+            return response;
+        }
+
+        // True if an identical query was already pending and this caller shares its round trip
+        public boolean joined() {
+            return joined;
+        }
+
+        // Up to the max wait for our turn, then up to "budgetMillis" for the round trip
+        public T await(long budgetMillis) {
+            try {
+                try {
+                    sent.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    throw new NotSentException("Not sent to AlphaVantage within " + maxWaitMillis + "ms");
+                }
+                try {
+                    return response.get(budgetMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    throw new BudgetExceededException(budgetMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for AlphaVantage", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof NotSentException notSent) {
+                    throw notSent;
+                }
+                throw new RuntimeException("AlphaVantage request failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    private record Enqueued(PendingRequest request, boolean joined) {}
+
+    private Enqueued enqueue(Priority priority, String query, long maxWaitMillis) {
+        long deadline = System.currentTimeMillis() + maxWaitMillis;
+
+        synchronized (lock) {
+            PendingRequest existing = pendingByQuery.get(query);
+            if (existing != null) {
+                coalesced.increment();
+                existing.deadline = Math.max(existing.deadline, deadline);
+                if (priority.ordinal() < existing.priority.ordinal() && queue.remove(existing)) {
+                    existing.priority = priority;
+                    queue.add(existing);
+                }
+                return new Enqueued(existing, true);
+            }
+
+            PendingRequest request = new PendingRequest(query, priority, sequence++, deadline);
+            pendingByQuery.put(query, request);
+            queue.add(request);
+            lock.notifyAll();
+            return new Enqueued(request, false);
+        }
+    }
+
+    /**
+     * Snapshot of the gateway for monitoring (queue depth per priority, wait times, quota).
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (lock) {
+            Map<String, Integer> depth = new LinkedHashMap<>();
+            for (Priority p : Priority.values()) {
+                depth.put(p.name(), queueDepth(p));
+            }
+            stats.put("queueDepth", depth);
+            stats.put("inFlight", pendingByQuery.size() - queue.size());
+            stats.put("usedToday", usedToday);
+            stats.put("dailyLimit", requestsPerDay);
+        }
+        long count = dispatched.sum();
+        stats.put("dispatched", count);
+        stats.put("coalesced", coalesced.sum());
+        stats.put("expired", expired.sum());
+        stats.put("avgWaitMs", count == 0 ? 0 : totalWaitMillis.sum() / count);
+        stats.put("maxWaitMs", maxWaitMillisSeen.get());
+        stats.put("tokensAvailable", Math.floor(minuteBucket.available()));
+        return stats;
+    }
+
+    private double remainingToday() {
+        if (requestsPerDay <= 0) return Double.NaN;
+        synchronized (lock) {
+            return quotaDay.equals(LocalDate.now(ZoneOffset.UTC)) ? requestsPerDay - usedToday : requestsPerDay;
+        }
+    }
+
+    private int queueDepth(Priority priority) {
+        synchronized (lock) {
+            return (int) queue.stream().filter(r -> r.priority == priority).count();
+        }
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    // 0 means the key has no daily cap
+    public int getRequestsPerDay() {
+        return requestsPerDay;
+    }
+
+    @PostConstruct
+    void start() {
+        dispatcher = Thread.ofPlatform().daemon().name("alphavantage-dispatcher").start(this::dispatchLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+    }
+
+    // --- DISPATCHER ---
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                awaitWork();
+                minuteBucket.acquire();
+
+                PendingRequest next = pollLive();
+                if (next == null) {
+                    minuteBucket.refund(); // Everything that was queued expired while we waited for a token
+                    continue;
+                }
+                if (!reserveDailyQuota()) {
+                    minuteBucket.refund();
+                    finish(next, null, new NotSentException("AlphaVantage daily quota exhausted"));
+                    continue;
+                }
+
+                // Async send: a slow response doesn't hold up the queue
+                if (!execute(next)) {
+                    continue;
+                }
+
+                long waited = System.currentTimeMillis() - next.enqueuedAt;
+                totalWaitMillis.add(waited);
+                queueWait.record(waited, TimeUnit.MILLISECONDS);
+                maxWaitMillisSeen.accumulateAndGet(waited, Math::max);
+                dispatched.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void awaitWork() throws InterruptedException {
+        synchronized (lock) {
+            while (queue.isEmpty()) {
+                lock.wait();
+            }
+        }
+    }
+
+    // Takes the highest-priority request whose callers are still waiting
+    private PendingRequest pollLive() {
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            PendingRequest next;
+            while ((next = queue.poll()) != null) {
+                if (next.deadline >= now) {
+                    return next;
+                }
+                expired.increment();
+                pendingByQuery.remove(next.query);
+                NotSentException error = new NotSentException("Expired in AlphaVantage queue");
+                next.sent.completeExceptionally(error);
+                next.future.completeExceptionally(error);
+            }
+            return null;
+        }
+    }
+
+    private boolean reserveDailyQuota() {
+        synchronized (lock) {
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            if (!today.equals(quotaDay)) {
+                quotaDay = today;
+                usedToday = 0;
+            }
+            if (requestsPerDay > 0 && usedToday >= requestsPerDay) {
+                return false;
+            }
+            usedToday++;
+            return true;
+        }
+    }
+
+    private void releaseDailyQuota() {
+        synchronized (lock) {
+            if (usedToday > 0) {
+                usedToday--;
+            }
+        }
+    }
+
+    // False if no request could be built from the query: nothing went out, so the quota is given back
+    // and the callers get NotSentException (a bad query says nothing about AlphaVantage)
+    private boolean execute(PendingRequest request) {
+        CompletableFuture<byte[]> response;
+        try {
+            response = httpClient.getAsync(request.query);
+        } catch (RuntimeException e) {
+            minuteBucket.refund();
+            releaseDailyQuota();
+            finish(request, null, new NotSentException("Could not build AlphaVantage request: " + e.getMessage()));
+            return false;
+        }
+        request.sent.complete(null);
+        response.whenComplete((body, error) -> finish(request, body, error));
+        return true;
+    }
+
+    private void finish(PendingRequest request, byte[] response, Throwable error) {
+        synchronized (lock) {
+            pendingByQuery.remove(request.query, request);
+        }
+        if (error != null) {
+            request.sent.completeExceptionally(error);
+            request.future.completeExceptionally(error);
+        } else {
+            request.future.complete(response);
+        }
+    }
+
+    private static class PendingRequest implements Comparable<PendingRequest> {
+        final String query;
+        final long seq;
+        final long enqueuedAt = System.currentTimeMillis();
+        final CompletableFuture<Void> sent = new CompletableFuture<>();
+        final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        Priority priority;
+        long deadline;
+
+        PendingRequest(String query, Priority priority, long seq, long deadline) {
+            this.query = query;
+            this.priority = priority;
+            this.seq = seq;
+            this.deadline = deadline;
+        }
+
+        // Priority first, then FIFO within the same priority
+        @Override
+        public int compareTo(PendingRequest other) {
+            int byPriority = Integer.compare(priority.ordinal(), other.priority.ordinal());
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.dtos.AlphaVantageResponses.ExchangeRateResponse;
+import com.assetcompass.tracker.dtos.AlphaVantageResponses.GlobalQuoteResponse;
+import com.assetcompass.tracker.dtos.AlphaVantageResponses.SymbolSearchMatch;
+import com.assetcompass.tracker.dtos.AlphaVantageResponses.SymbolSearchResponse;
+import com.assetcompass.tracker.services.SymbolIndex.SymbolMatch;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * The real thing: every lookup is one AlphaVantage call, queued through the gateway.
+ *
+ * Each upstream function has its own circuit breaker and latency budget, so an outage (or an exhausted
+ * quota) costs callers at most one budget per call until the circuit opens - after that they get their
+ * cached value / fallback immediately, and a few half-open probes decide when to go back upstream.
+ * The budget only covers the HTTP round trip, and the circuit is fed by how that round trip really ended
+ * (MarketDataHttpClient's own timeout included) - a caller giving up, or a request stuck in our own
+ * queue, is never held against AlphaVantage. Callers the gateway merged into one request share that
+ * round trip's single verdict.
+ *
+ * Search is typeahead: it waits at most a few hundred ms for its turn in the queue (not the gateway's
+ * max wait), so a keystroke that misses the local index falls back quickly when the quota is busy.
+ *
+ * Metrics: every call is timed as "marketdata.upstream.requests" (tags: function, outcome), and each
+ * circuit's state is the gauge "marketdata.upstream.circuit.state" (0 closed, 1 open, 2 half-open).
+ */
+@Component
+@ConditionalOnProperty(name = "app.market-data.provider", havingValue = "alphavantage", matchIfMissing = true)
+public class AlphaVantageMarketDataProvider implements MarketDataProvider {
+
+    // One circuit per AlphaVantage function (a broken search must not block quotes)
+    public enum Upstream {
+        GLOBAL_QUOTE,
+        CURRENCY_EXCHANGE_RATE,
+        SYMBOL_SEARCH
+    }
+
+    private final AlphaVantageGateway gateway;
+    private final Map<Upstream, CircuitBreaker> breakers = new EnumMap<>(Upstream.class);
+    private final Map<Upstream, Long> budgets = new EnumMap<>(Upstream.class);
+    private final Map<Upstream, Long> queueWaits = new EnumMap<>(Upstream.class);
+    private final MeterRegistry meterRegistry;
+
+    public AlphaVantageMarketDataProvider(AlphaVantageGateway gateway,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${app.market-data.breaker.failure-threshold:5}") int failureThreshold,
+                                          @Value("${app.market-data.breaker.open-seconds:30}") long openSeconds,
+                                          @Value("${app.market-data.breaker.half-open-probes:1}") int halfOpenProbes,
+                                          @Value("${app.market-data.budget.quote-ms:3000}") long quoteBudgetMillis,
+                                          @Value("${app.market-data.budget.fx-ms:5000}") long fxBudgetMillis,
+                                          @Value("${app.market-data.budget.search-ms:3000}") long searchBudgetMillis,
+                                          @Value("${app.market-data.queue-wait.search-ms:500}") long searchQueueWaitMillis) {
+        this.gateway = gateway;
+        this.meterRegistry = meterRegistry;
+        for (Upstream upstream : Upstream.values()) {
+            breakers.put(upstream, new CircuitBreaker(upstream.name(), failureThreshold, openSeconds * 1000, halfOpenProbes));
+            Gauge.builder("marketdata.upstream.circuit.state", this, provider -> provider.getCircuitState(upstream).ordinal())
+                    .description("Circuit breaker per AlphaVantage function: 0 closed, 1 open, 2 half-open")
+                    .tag("function", upstream.name())
+                    .register(meterRegistry);
+        }
+        budgets.put(Upstream.GLOBAL_QUOTE, quoteBudgetMillis);
+        budgets.put(Upstream.CURRENCY_EXCHANGE_RATE, fxBudgetMillis);
+        budgets.put(Upstream.SYMBOL_SEARCH, searchBudgetMillis);
+        queueWaits.put(Upstream.GLOBAL_QUOTE, gateway.getMaxWaitMillis());
+        queueWaits.put(Upstream.CURRENCY_EXCHANGE_RATE, gateway.getMaxWaitMillis());
+        queueWaits.put(Upstream.SYMBOL_SEARCH, Math.min(searchQueueWaitMillis, gateway.getMaxWaitMillis()));
+    }
+
+    @Override
+    public String name() {
+        return "alphavantage";
+    }
+
+    @Override
+    public BigDecimal getQuote(String symbol, Priority priority) {
+        GlobalQuoteResponse response = call(Upstream.GLOBAL_QUOTE, priority, "symbol=" + MarketDataHttpClient.encode(symbol),
+                GlobalQuoteResponse.class, found -> found.note() != null || found.information() != null);
+        return response == null ? null : response.price();
+    }
+
+    @Override
+    public BigDecimal getExchangeRate(String fromCurrency, String toCurrency, Priority priority) {
+        ExchangeRateResponse response = call(Upstream.CURRENCY_EXCHANGE_RATE, priority,
+                "from_currency=" + MarketDataHttpClient.encode(fromCurrency) + "&to_currency=" + MarketDataHttpClient.encode(toCurrency),
+                ExchangeRateResponse.class, found -> found.note() != null || found.information() != null);
+        return response == null ? null : response.rate();
+    }
+
+    @Override
+    public List<SymbolMatch> searchSymbols(String keywords, Priority priority) {
+        SymbolSearchResponse response = call(Upstream.SYMBOL_SEARCH, priority, "keywords=" + MarketDataHttpClient.encode(keywords),
+                SymbolSearchResponse.class, found -> found.note() != null || found.information() != null);
+        if (response == null || response.bestMatches() == null) {
+            return null;
+        }
+
+        List<SymbolMatch> matches = new ArrayList<>();
+        for (SymbolSearchMatch match : response.bestMatches()) {
+            if (match.symbol() == null) continue;
+            matches.add(new SymbolMatch(match.symbol(), match.name(), match.type(), match.region(), match.currency()));
+        }
+        return matches;
+    }
+
+    @Override
+    public int getRequestsPerMinute() {
+        return gateway.getRequestsPerMinute();
+    }
+
+    @Override
+    public int getRequestsPerDay() {
+        return gateway.getRequestsPerDay();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("provider", name());
+        stats.putAll(gateway.getStats());
+
+        Map<String, Object> circuits = new LinkedHashMap<>();
+        breakers.forEach((upstream, breaker) -> circuits.put(upstream.name(), breaker.getStats()));
+        stats.put("circuits", circuits);
+        return stats;
+    }
+
+    public CircuitBreaker.State getCircuitState(Upstream upstream) {
+        return breakers.get(upstream).getState();
+    }
+
+    /**
+     * One guarded upstream call: rejected at once while the circuit is open, given up after the function's
+     * queue wait or budget, and counted as a failure when it throws or comes back as a quota message ("limited").
+     */
+    private <T> T call(Upstream upstream, Priority priority, String params, Class<T> type, Predicate<T> limited) {
+        CircuitBreaker breaker = breakers.get(upstream);
+        if (!breaker.tryAcquire()) {
+            record(upstream, "rejected", 0);
+            throw new CircuitBreaker.OpenException(upstream.name());
+        }
+
+        long started = System.nanoTime();
+        AlphaVantageGateway.Call<T> call = gateway.submit(priority, "function=" + upstream.name() + "&" + params, type,
+                queueWaits.get(upstream));
+        if (call.joined()) {
+            // Shares another caller's round trip - that caller reports the verdict, once
+            call.response().whenComplete((response, error) -> breaker.release());
+        } else {
+            call.response().whenComplete((response, error) -> settle(breaker, response, error, limited));
+        }
+
+        T response;
+        try {
+            response = call.await(budgets.get(upstream));
+        } catch (AlphaVantageGateway.NotSentException e) {
+            record(upstream, "not_sent", System.nanoTime() - started);
+            throw e;
+        } catch (AlphaVantageGateway.BudgetExceededException e) {
+            record(upstream, "over_budget", System.nanoTime() - started);
+            throw e;
+        } catch (RuntimeException e) {
+            record(upstream, "error", System.nanoTime() - started);
+            throw e;
+        }
+
+        boolean isLimited = response == null || limited.test(response);
+        record(upstream, isLimited ? "limited" : "success", System.nanoTime() - started);
+        return response;
+    }
+
+    // The circuit's verdict, once the round trip is over (even if the caller stopped waiting for it)
+    private static <T> void settle(CircuitBreaker breaker, T response, Throwable error, Predicate<T> limited) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause instanceof AlphaVantageGateway.NotSentException) {
+            breaker.release();
+        } else if (cause != null || response == null || limited.test(response)) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    // outcome: success | limited (quota message) | error (failed) | over_budget (caller stopped waiting)
+    //          | not_sent (queue wait / daily quota) | rejected (circuit open)
+    private void record(Upstream upstream, String outcome, long nanos) {
+        Timer.builder("marketdata.upstream.requests")
+                .description("AlphaVantage calls, including the time spent queued in the gateway")
+                .tag("function", upstream.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
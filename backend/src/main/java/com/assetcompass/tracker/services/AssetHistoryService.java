@@ -0,0 +1,263 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.dtos.HistoryBucketDTO;
+import com.assetcompass.tracker.dtos.HistoryPointDTO;
+import com.assetcompass.tracker.models.Transaction;
+import com.assetcompass.tracker.repositories.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * Chart-sized views of an asset's history.
+ * History lives in two places: BUY/SELL events (and older PRICE_REFRESH rows) in the "transactions" table,
+ * and price refreshes in the ValuationSeriesStore. Both views merge the two.
+ *
+ * Bucketed views are aggregated at the source (Postgres / a single pass over the series file), so the
+ * payload depends on the time range and bucket size - not on how often the asset was refreshed.
+ * The raw view is paged newest first with a keyset on (timestamp, id).
+ */
+@Service
+public class AssetHistoryService {
+
+    public enum Bucket {
+        HOUR(Duration.ofHours(1)),
+        DAY(Duration.ofDays(1)),
+        WEEK(Duration.ofDays(7));
+
+        private final Duration length;
+
+        Bucket(Duration length) {
+            this.length = length;
+        }
+
+        public Duration length() {
+            return length;
+        }
+
+        // The unit name date_trunc() expects
+        String unit() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        // Same boundaries as Postgres date_trunc (weeks start on Monday)
+        LocalDateTime truncate(LocalDateTime time) {
+            return switch (this) {
+                case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+                case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+                case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            };
+        }
+
+        public static Bucket parse(String value) {
+            try {
+                return Bucket.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unknown bucket: " + value + " (use hour, day or week)");
+            }
+        }
+    }
+
+    // Series points sort before transactions with the same timestamp; in a cursor they carry this id
+    public static final long SERIES_POINT_ID = Long.MAX_VALUE;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final TransactionRepository transactionRepository;
+    private final ValuationSeriesStore seriesStore;
+
+    // Upper bound on points per chart - longer ranges need a bigger bucket
+    @Value("${app.history.max-buckets:1000}")
+    private int maxBuckets;
+
+    public AssetHistoryService(TransactionRepository transactionRepository, ValuationSeriesStore seriesStore) {
+        this.transactionRepository = transactionRepository;
+        this.seriesStore = seriesStore;
+    }
+
+    /**
+     * Aggregates the asset's history into buckets over [from, to).
+     * Missing ends default to "now" and to the widest range the bucket size allows.
+     */
+    public List<HistoryBucketDTO> getBuckets(Long assetId, Bucket bucket, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(bucket.length().multipliedBy(maxBuckets));
+
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        long buckets = Duration.between(start, end).dividedBy(bucket.length());
+        if (buckets > maxBuckets) {
+            throw new IllegalArgumentException("Range covers " + buckets + " " + bucket.unit()
+                    + " buckets (max " + maxBuckets + ") - use a larger bucket or a shorter range");
+        }
+
+        TreeMap<LocalDateTime, BucketAccumulator> merged = new TreeMap<>();
+
+        // 1. Transactions, aggregated by Postgres
+        for (Object[] row : transactionRepository.findHistoryBuckets(assetId, bucket.unit(), start, end)) {
+            merged.computeIfAbsent(toLocalDateTime(row[0]), BucketAccumulator::new).merge(
+                    toLocalDateTime(row[6]), (BigDecimal) row[1],
+                    toLocalDateTime(row[7]), (BigDecimal) row[2],
+                    (BigDecimal) row[3], (BigDecimal) row[4], ((Number) row[5]).longValue());
+        }
+
+        // 2. Series points, aggregated in one pass (bucket boundaries are only worked out when a bucket changes)
+        SeriesBucketer bucketer = new SeriesBucketer(bucket, merged);
+        seriesStore.scan(assetId, toMillis(start), toMillis(end), bucketer);
+        bucketer.flush();
+
+        List<HistoryBucketDTO> result = new ArrayList<>(merged.size());
+        merged.values().forEach(accumulator -> result.add(accumulator.toDto()));
+        return result;
+    }
+
+    /**
+     * One page of raw history, newest first. Pass the timestamp + id of the last entry of the
+     * previous page to continue (SERIES_POINT_ID if that entry came from the series).
+     */
+    public List<HistoryPointDTO> getRawPage(Long assetId, LocalDateTime beforeTime, Long beforeId, int limit) {
+        List<Transaction> transactions = beforeTime == null || beforeId == null
+                ? transactionRepository.findHistoryPage(assetId, Limit.of(limit))
+                : transactionRepository.findHistoryPageBefore(assetId, beforeTime, beforeId, Limit.of(limit));
+
+        // Series points strictly before the cursor time (ties went out on the previous page, ahead of transactions)
+        long beforeMillis = beforeTime == null ? Long.MAX_VALUE : ceilMillis(beforeTime);
+        List<ValuationSeriesStore.Point> points = seriesStore.latestBefore(assetId, beforeMillis, limit);
+
+        // Merge the two newest-first lists
+        List<HistoryPointDTO> page = new ArrayList<>(limit);
+        int t = 0;
+        int p = 0;
+        while (page.size() < limit && (t < transactions.size() || p < points.size())) {
+            LocalDateTime pointTime = p < points.size() ? toLocalDateTime(points.get(p).epochMillis()) : null;
+            Transaction transaction = t < transactions.size() ? transactions.get(t) : null;
+
+            if (transaction == null || (pointTime != null && !pointTime.isBefore(transaction.getTimestamp()))) {
+                page.add(new HistoryPointDTO(null, "PRICE_REFRESH", points.get(p++).value(), pointTime));
+            } else {
+                page.add(new HistoryPointDTO(transaction.getId(), transaction.getType(),
+                        transaction.getValueAtTime(), transaction.getTimestamp()));
+                t++;
+            }
+        }
+        return page;
+    }
+
+    // --- INTERNALS ---
+
+    private static final class BucketAccumulator {
+        private final LocalDateTime start;
+        private LocalDateTime firstAt;
+        private BigDecimal first;
+        private LocalDateTime lastAt;
+        private BigDecimal last;
+        private BigDecimal min;
+        private BigDecimal max;
+        private long count;
+
+        BucketAccumulator(LocalDateTime start) {
+            this.start = start;
+        }
+
+        void merge(LocalDateTime otherFirstAt, BigDecimal otherFirst, LocalDateTime otherLastAt, BigDecimal otherLast,
+                   BigDecimal otherMin, BigDecimal otherMax, long otherCount) {
+            if (firstAt == null || otherFirstAt.isBefore(firstAt)) {
+                firstAt = otherFirstAt;
+                first = otherFirst;
+            }
+            if (lastAt == null || otherLastAt.isAfter(lastAt)) {
+                lastAt = otherLastAt;
+                last = otherLast;
+            }
+            min = min == null || otherMin.compareTo(min) < 0 ? otherMin : min;
+            max = max == null || otherMax.compareTo(max) > 0 ? otherMax : max;
+            count += otherCount;
+        }
+
+        HistoryBucketDTO toDto() {
+            return new HistoryBucketDTO(start, first, last, min, max, count);
+        }
+    }
+
+    // Folds series points into buckets using plain longs, handing each finished bucket to the merged map
+    private static final class SeriesBucketer implements ValuationSeriesStore.PointVisitor {
+        private final Bucket bucket;
+        private final TreeMap<LocalDateTime, BucketAccumulator> merged;
+
+        private LocalDateTime start;
+        private long endMillis = Long.MIN_VALUE;
+        private long firstAt, first, lastAt, last, min, max, count;
+
+        SeriesBucketer(Bucket bucket, TreeMap<LocalDateTime, BucketAccumulator> merged) {
+            this.bucket = bucket;
+            this.merged = merged;
+        }
+
+        @Override
+        public void visit(long epochMillis, long scaledValue) {
+            if (epochMillis >= endMillis) {
+                flush();
+                start = bucket.truncate(toLocalDateTime(epochMillis));
+                endMillis = toMillis(start.plus(bucket.length()));
+                firstAt = epochMillis;
+                first = scaledValue;
+                min = scaledValue;
+                max = scaledValue;
+            }
+            lastAt = epochMillis;
+            last = scaledValue;
+            min = Math.min(min, scaledValue);
+            max = Math.max(max, scaledValue);
+            count++;
+        }
+
+        void flush() {
+            if (count == 0) return;
+            merged.computeIfAbsent(start, BucketAccumulator::new).merge(
+                    toLocalDateTime(firstAt), scaled(first), toLocalDateTime(lastAt), scaled(last),
+                    scaled(min), scaled(max), count);
+            count = 0;
+        }
+
+        private static BigDecimal scaled(long value) {
+            return BigDecimal.valueOf(value, ValuationSeriesStore.SCALE);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZONE);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    // Smallest millisecond value that is not before the given time
+    private static long ceilMillis(LocalDateTime time) {
+        long millis = toMillis(time);
+        return time.getNano() % 1_000_000 == 0 ? millis : millis + 1;
+    }
+
+    // Native queries hand timestamps back as java.sql.Timestamp or LocalDateTime depending on the driver
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,137 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.models.Asset;
+import com.assetcompass.tracker.repositories.AssetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Refreshes every holding of a user in one go.
+ * Each distinct ticker is priced once (concurrently, on virtual threads - the AlphaVantage gateway
+ * keeps us inside the quota), then all asset updates are written in a single transaction and each new
+ * valuation is appended to the asset's series for the history graph.
+ */
+@Service
+public class AssetRefreshService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetRefreshService.class);
+
+    private final AssetRepository assetRepository;
+    private final ValuationSeriesStore valuationSeriesStore;
+    private final StockService stockService;
+    private final PortfolioValuationService portfolioValuationService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AssetRefreshService(AssetRepository assetRepository,
+                               ValuationSeriesStore valuationSeriesStore,
+                               StockService stockService,
+                               PortfolioValuationService portfolioValuationService,
+                               PlatformTransactionManager transactionManager,
+                               ApplicationEventPublisher eventPublisher) {
+        this.assetRepository = assetRepository;
+        this.valuationSeriesStore = valuationSeriesStore;
+        this.stockService = stockService;
+        this.portfolioValuationService = portfolioValuationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    public Map<String, Object> refreshAll(Long userId) {
+        // 1. Which tickers to price (just the symbols - the holdings are loaded where they're written)
+        Set<String> tickers = new LinkedHashSet<>(assetRepository.findDistinctTickersByUserId(userId));
+
+        // 2. Price each distinct ticker once (no DB connection is held while we wait on the network)
+        Map<String, BigDecimal> prices = fetchPrices(tickers);
+
+        // 3. Load and update in one transaction: the holdings stay managed, so the UPDATEs are flushed
+        //    in JDBC batches on commit instead of a SELECT + UPDATE per detached asset
+        List<Asset> updated = new ArrayList<>();
+        List<Map<String, Object>> results = transactionTemplate.execute(status ->
+                applyPrices(assetRepository.findByUserId(userId), prices, updated));
+
+        // 4. Committed - log the new valuations and move the running portfolio totals along
+        Map<Long, Long> valuations = new HashMap<>();
+        for (Asset asset : updated) {
+            BigDecimal price = asset.getBuyPrice();
+            Long value = ValuationSeriesStore.scaledValueOf(asset, price);
+            if (value != null) {
+                valuations.put(asset.getId(), value);
+            }
+            portfolioValuationService.onPriceRefreshed(userId, asset.getId(), price);
+        }
+        valuationSeriesStore.appendAll(valuations, System.currentTimeMillis());
+        prices.forEach((ticker, price) -> eventPublisher.publishEvent(new PriceUpdatedEvent(ticker, price)));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("refreshed", results.size());
+        response.put("distinctTickers", tickers.size());
+        response.put("assets", results);
+        return response;
+    }
+
+    private Map<String, BigDecimal> fetchPrices(Set<String> tickers) {
+        Map<String, Future<BigDecimal>> pending = new HashMap<>();
+        Map<String, BigDecimal> prices = new HashMap<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String ticker : tickers) {
+                pending.put(ticker, executor.submit(() -> stockService.getStockPrice(ticker)));
+            }
+            for (Map.Entry<String, Future<BigDecimal>> entry : pending.entrySet()) {
+                try {
+                    BigDecimal price = entry.getValue().get();
+                    if (price != null) {
+                        prices.put(entry.getKey(), price);
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to refresh {}: {}", entry.getKey(), e.toString());
+                }
+            }
+        }
+        return prices;
+    }
+
+    // Runs inside the transaction on managed entities - dirty checking writes the changes, no saveAll needed
+    private List<Map<String, Object>> applyPrices(List<Asset> assets, Map<String, BigDecimal> prices, List<Asset> updated) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Asset asset : assets) {
+            BigDecimal currentPrice = prices.get(asset.getTicker().toUpperCase());
+            if (currentPrice == null) {
+                continue;
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id", asset.getId());
+            result.put("ticker", asset.getTicker());
+            result.put("oldPrice", asset.getBuyPrice());
+            result.put("currentPrice", currentPrice);
+            result.put("quantity", asset.getQuantity());
+            results.add(result);
+
+            asset.setBuyPrice(currentPrice);
+            asset.setLastUpdated(now);
+            updated.add(asset);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,140 @@
+package com.assetcompass.tracker.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small circuit breaker for one upstream function.
+ *
+ * CLOSED    - calls go through; "failureThreshold" failures in a row open the circuit.
+ * OPEN      - calls are rejected straight away (callers use their cached value / fallback) for "openMillis".
+ * HALF_OPEN - up to "halfOpenProbes" trial calls go through; one success closes the circuit, one failure re-opens it.
+ *
+ * Usage: if (tryAcquire()) { call, then onSuccess() or onFailure() } else { serve the fallback }.
+ * A call that never reached the upstream reports release() instead - it is no verdict either way.
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    // Thrown instead of calling the upstream while the circuit is open
+    public static class OpenException extends RuntimeException {
+        public OpenException(String name) {
+            super("Circuit '" + name + "' is open");
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    // --- STATE (guarded by "this") ---
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int probesInFlight;
+    private long openedAt;
+    private long stateSince = System.currentTimeMillis();
+
+    // --- STATS (guarded by "this") ---
+    private long successes;
+    private long failures;
+    private long rejected;
+    private long timesOpened;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis, int halfOpenProbes) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * True if the caller may go upstream. Once the open period is over, the first callers become half-open probes.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                rejected++;
+                return false;
+            }
+            transition(State.HALF_OPEN);
+            probesInFlight = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                rejected++;
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        successes++;
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            openedAt = System.currentTimeMillis();
+            timesOpened++;
+            transition(State.OPEN);
+            log.warn("Circuit '{}' opened after {} failure(s). Serving cached values for {}ms.", name, consecutiveFailures, openMillis);
+        }
+    }
+
+    // The permit went unused: frees its half-open probe slot without judging the upstream
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        // Report an expired open period as half-open, even before the next call flips it
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", getState().name());
+        stats.put("stateSinceMs", System.currentTimeMillis() - stateSince);
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("successes", successes);
+        stats.put("failures", failures);
+        stats.put("rejected", rejected);
+        stats.put("timesOpened", timesOpened);
+        return stats;
+    }
+
+    private void transition(State next) {
+        if (state == State.HALF_OPEN && next == State.CLOSED) {
+            log.info("Circuit '{}' closed again.", name);
+        }
+        state = next;
+        stateSince = System.currentTimeMillis();
+    }
+}
@@ -1,50 +1,120 @@
 package com.assetcompass.tracker.services;
 
+import com.assetcompass.tracker.config.RequestTiming;
+import com.assetcompass.tracker.services.MarketDataProvider.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class CurrencyService {
 
-    @Value("${app.alphavantage.key}")
-    private String apiKey;
+    private static final Logger log = LoggerFactory.getLogger(CurrencyService.class);
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // A rate older than this is stale: readers still get it, but it triggers a background refresh
+    @Value("${app.fx.max-age-seconds:7200}")
+    private long maxAgeSeconds;
 
-    // Fallback rate in case API fails or rate limit is reached (Prevents app crash)
-    private BigDecimal cachedUsdToZarRate = new BigDecimal("18.50");
+    private final MarketDataProvider marketData;
+
+    // Immutable rate + the moment we fetched it (null until the first successful fetch)
+    private record RateSnapshot(BigDecimal rate, Instant fetchedAt) {}
+
+    // Fallback rate in case API fails or rate limit is reached (Prevents app crash).
+    // Swapped atomically, so readers never block and never see a half-updated value.
+    private final AtomicReference<RateSnapshot> usdToZar =
+            new AtomicReference<>(new RateSnapshot(new BigDecimal("18.50"), null));
+
+    // Only one refresh may talk to the market data provider at a time
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    // When we last tried, so a failing upstream isn't retried by every reader
+    private final AtomicLong lastAttemptMillis = new AtomicLong(0);
+
+    private static final long RETRY_INTERVAL_MILLIS = 60_000;
+
+    // Refreshes that kept the previous rate (limit message or failure)
+    private final Counter fallbacks;
+
+    public CurrencyService(MarketDataProvider marketData, MeterRegistry meterRegistry) {
+        this.marketData = marketData;
+        this.fallbacks = meterRegistry.counter("marketdata.fallbacks", "kind", "fx", "source", "cached_rate");
+
+        // Age of the USD/ZAR rate we serve (NaN while still on the hard-coded fallback)
+        Gauge.builder("fx.rate.age", this, service -> service.getRateAge().map(Duration::toSeconds).map(Long::doubleValue).orElse(Double.NaN))
+                .description("Seconds since the USD/ZAR rate was fetched")
+                .baseUnit("seconds")
+                .tag("pair", "USD/ZAR")
+                .register(meterRegistry);
+        Gauge.builder("fx.rate", this, service -> service.usdToZar.get().rate().doubleValue())
+                .tag("pair", "USD/ZAR")
+                .register(meterRegistry);
+    }
 
     /**
-     * Fetches the live USD -> ZAR exchange rate.
+     * Returns the latest known USD -> ZAR exchange rate without touching the network.
+     * If the rate is stale, a refresh is kicked off in the background and the stale rate is served meanwhile.
      * Example: Returns 19.25
      */
     public BigDecimal getUsdToZarRate() {
-        String url = "https://www.alphavantage.co/query?function=CURRENCY_EXCHANGE_RATE&from_currency=USD&to_currency=ZAR&apikey=" + apiKey;
+        try (RequestTiming.Phase phase = RequestTiming.start("fx")) {
+            RateSnapshot snapshot = usdToZar.get();
+            if (isStale(snapshot) && System.currentTimeMillis() - lastAttemptMillis.get() > RETRY_INTERVAL_MILLIS) {
+                Thread.ofVirtual().start(this::refreshUsdToZarRate);
+            }
+            return snapshot.rate();
+        }
+    }
 
-        try {
-            String response = restTemplate.getForObject(url, String.class);
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response);
+    /**
+     * How old the current rate is. Empty while we are still on the hard-coded fallback.
+     */
+    public Optional<Duration> getRateAge() {
+        Instant fetchedAt = usdToZar.get().fetchedAt();
+        return Optional.ofNullable(fetchedAt).map(at -> Duration.between(at, Instant.now()));
+    }
+
+    /**
+     * Fetches the live USD -> ZAR rate from the market data provider on a fixed schedule (and once at startup).
+     * On failure the previous rate is kept.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.fx.refresh-interval-ms:3600000}")
+    public void refreshUsdToZarRate() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return; // Another refresh is already in progress
+        }
+        lastAttemptMillis.set(System.currentTimeMillis());
 
-            // Navigate the JSON response from AlphaVantage
-            JsonNode rateNode = root.path("Realtime Currency Exchange Rate").path("5. Exchange Rate");
+        try {
+            BigDecimal liveRate = marketData.getExchangeRate("USD", "ZAR", Priority.BACKGROUND);
 
             // Check if we actually got the rate, or if we got an API limit error message
-            if (!rateNode.isMissingNode()) {
-                cachedUsdToZarRate = new BigDecimal(rateNode.asText());
-                System.out.println("✅ Live USD/ZAR Rate Fetched: R" + cachedUsdToZarRate);
+            if (liveRate != null) {
+                usdToZar.set(new RateSnapshot(liveRate, Instant.now()));
+                log.info("Live USD/ZAR rate fetched: R{}", liveRate);
             } else {
-                System.out.println("⚠️ Currency API Limit Reached. Using cached rate: R" + cachedUsdToZarRate);
+                fallbacks.increment();
+                log.debug("No USD/ZAR rate from upstream, keeping R{}", usdToZar.get().rate());
             }
         } catch (Exception e) {
-            System.err.println("⚠️ Currency API Failed (Using Cache): " + e.getMessage());
+            fallbacks.increment();
+            log.warn("USD/ZAR refresh failed, keeping R{}: {}", usdToZar.get().rate(), e.toString());
+        } finally {
+            refreshing.set(false);
         }
-        return cachedUsdToZarRate;
     }
 
     /**
@@ -56,4 +126,11 @@ public class CurrencyService {
         // Divide ZAR by Rate (e.g., 5000 / 18.50), round to 2 decimals
         return zarAmount.divide(rate, 2, RoundingMode.HALF_UP);
     }
-}
\ No newline at end of file
+
+    private boolean isStale(RateSnapshot snapshot) {
+        if (snapshot.fetchedAt() == null) {
+            return true; // Still on the hard-coded fallback
+        }
+        return snapshot.fetchedAt().plusSeconds(maxAgeSeconds).isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,465 @@
+package com.assetcompass.tracker.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Imports a CSV of lots (e.g. a broker statement) as holdings.
+ *
+ * The file is read one line at a time and written in JDBC batches (assets, then their BUY transactions),
+ * each batch in its own transaction - memory stays flat no matter how long the file is. Rows are checked
+ * against the column limits before they are batched, and a batch the database still rejects is retried
+ * row by row, so a bad row only costs that row. Nothing waits on AlphaVantage: a lot without a price only gets one we already
+ * have (fresh quote / shared price table), and today's FX rate is looked up once per file.
+ *
+ * Lots are stored like a buy: in USD (ZAR prices converted at the lot's rate, HALF_DOWN), with a BUY log
+ * worth quantity x price in cents.
+ *
+ * Columns are matched by header name, in any order:
+ *   ticker, quantity        required
+ *   price                   required unless we already know a recent price for the ticker
+ *   date, currency          optional (today, USD)
+ *   exchangeRate            USD/ZAR on the lot's date - required for ZAR prices not dated today (today's rate otherwise)
+ *   name, assetType         optional (symbol listing name / ticker, STOCK)
+ * Numbers use '.' for decimals; thousands separators are only accepted when that is unambiguous (1,500.25).
+ */
+@Service
+public class HoldingsImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldingsImportService.class);
+
+    public record RowError(long line, String message) {}
+
+    public record ImportReport(long rowsRead, long imported, long failed, int batches, long durationMs,
+                               List<RowError> errors) {}
+
+    private record Lot(long line, String ticker, String name, String assetType, BigDecimal quantity,
+                       BigDecimal priceUsd, BigDecimal exchangeRate, BigDecimal valueUsd, LocalDateTime date) {}
+
+    private static final Pattern TICKER = Pattern.compile("[A-Z0-9.\\-]{1,15}");
+
+    // assets.buy_price is NUMERIC(20,4): at most 16 integer digits
+    private static final BigDecimal MAX_PRICE = BigDecimal.TEN.pow(16);
+
+    // assets.name and assets.asset_type are plain @Column strings - Hibernate maps them to VARCHAR(255)
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    // 1,234,567.89 - grouping commas are only unambiguous next to a decimal point ("1,500" could mean 1.5)
+    private static final Pattern GROUPED = Pattern.compile("[+-]?\\d{1,3}(,\\d{3})+\\.\\d+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockService stockService;
+    private final CurrencyService currencyService;
+    private final SymbolIndex symbolIndex;
+    private final PortfolioValuationService portfolioValuationService;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    // Only the first errors are listed in the report (all of them are counted)
+    @Value("${app.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    public HoldingsImportService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 StockService stockService,
+                                 CurrencyService currencyService,
+                                 SymbolIndex symbolIndex,
+                                 PortfolioValuationService portfolioValuationService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stockService = stockService;
+        this.currencyService = currencyService;
+        this.symbolIndex = symbolIndex;
+        this.portfolioValuationService = portfolioValuationService;
+    }
+
+    public ImportReport importCsv(Long userId, InputStream csv) throws IOException {
+        long started = System.currentTimeMillis();
+        ImportRun run = new ImportRun(userId);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            // 1. Header decides which column is which
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV is empty");
+            }
+            Map<String, Integer> columns = indexColumns(splitCsvLine(stripBom(header)));
+            if (!columns.containsKey("ticker") || !columns.containsKey("quantity")) {
+                throw new IllegalArgumentException("CSV header must contain at least 'ticker' and 'quantity'");
+            }
+
+            // 2. Validate row by row, flushing a batch whenever it is full
+            List<Lot> batch = new ArrayList<>(batchSize);
+            String line;
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                run.rowsRead++;
+
+                try {
+                    batch.add(parseLot(lineNumber, splitCsvLine(line), columns, run));
+                } catch (IllegalArgumentException e) {
+                    run.error(lineNumber, e.getMessage());
+                }
+
+                if (batch.size() >= batchSize) {
+                    run.flush(batch);
+                }
+            }
+            run.flush(batch);
+        } finally {
+            // 3. Totals are rebuilt from the database on the next read
+            if (run.imported > 0) {
+                portfolioValuationService.invalidate(userId);
+            }
+        }
+
+        return new ImportReport(run.rowsRead, run.imported, run.failed, run.batches,
+                System.currentTimeMillis() - started, run.errors);
+    }
+
+    // --- INTERNALS ---
+
+    // Per-request state: counters, error list and the per-file quote/FX lookups
+    private final class ImportRun {
+        private final Long userId;
+        private final Map<String, BigDecimal> quotes = new HashMap<>();
+        private final Map<String, String> names = new HashMap<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private BigDecimal usdRate;
+        private long rowsRead;
+        private long imported;
+        private long failed;
+        private int batches;
+
+        ImportRun(Long userId) {
+            this.userId = userId;
+        }
+
+        void error(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new RowError(line, message));
+            }
+        }
+
+        // Only prices we already have - an import never queues behind the upstream rate limit.
+        // Misses are cached too (as null), so a ticker without a price is looked up once per file
+        BigDecimal knownPrice(String ticker) {
+            if (!quotes.containsKey(ticker)) {
+                quotes.put(ticker, stockService.getKnownPrice(ticker));
+            }
+            return quotes.get(ticker);
+        }
+
+        String name(String ticker) {
+            return names.computeIfAbsent(ticker, t -> symbolIndex.search(t, 1).stream()
+                    .filter(match -> match.symbol().equalsIgnoreCase(t))
+                    .map(SymbolIndex.SymbolMatch::name)
+                    .findFirst()
+                    .orElse(t));
+        }
+
+        BigDecimal usdRate() {
+            if (usdRate == null) {
+                usdRate = currencyService.getUsdToZarRate();
+            }
+            return usdRate;
+        }
+
+        void flush(List<Lot> batch) {
+            if (batch.isEmpty()) return;
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertBatch(userId, batch));
+                imported += batch.size();
+                batches++;
+                if (batches % 20 == 0) {
+                    log.info("Import for user {}: {} lots so far", userId, imported);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Import for user {}: batch of {} lots rejected, retrying row by row: {}",
+                        userId, batch.size(), e.getMessage());
+                retryRowByRow(batch);
+            }
+            batch.clear();
+        }
+
+        // The whole batch was rolled back - save each lot on its own so only the rejected ones are reported
+        private void retryRowByRow(List<Lot> batch) {
+            for (Lot lot : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertBatch(userId, List.of(lot)));
+                    imported++;
+                } catch (RuntimeException e) {
+                    log.warn("Import for user {}: line {} not saved", userId, lot.line(), e);
+                    error(lot.line(), notSavedMessage(e));
+                }
+            }
+            batches++;
+        }
+    }
+
+    // The database's own message names tables, columns and SQL - the report only gets a short reason
+    private static String notSavedMessage(RuntimeException e) {
+        if (e instanceof DuplicateKeyException) {
+            return "Not saved (duplicate row)";
+        }
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof SQLException)) {
+            cause = cause.getCause();
+        }
+        String sqlState = cause == null ? null : ((SQLException) cause).getSQLState();
+        if (sqlState == null) {
+            return "Not saved (database rejected the row)";
+        }
+        return switch (sqlState) {
+            case "23505" -> "Not saved (duplicate row)";
+            case "22001" -> "Not saved (a text value is too long)";
+            case "22003" -> "Not saved (a number is out of range)";
+            case "23502" -> "Not saved (a required value is missing)";
+            default -> "Not saved (database rejected the row)";
+        };
+    }
+
+    private Lot parseLot(long line, List<String> cells, Map<String, Integer> columns, ImportRun run) {
+        String ticker = cell(cells, columns, "ticker").toUpperCase(Locale.ROOT);
+        if (!TICKER.matcher(ticker).matches()) {
+            throw new IllegalArgumentException("Invalid ticker: '" + ticker + "'");
+        }
+
+        BigDecimal quantity = decimal(cell(cells, columns, "quantity"), "quantity");
+        if (quantity.signum() <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+
+        String priceCell = cell(cells, columns, "price");
+        BigDecimal price = priceCell.isEmpty() ? run.knownPrice(ticker) : decimal(priceCell, "price");
+        if (price == null) {
+            throw new IllegalArgumentException("No price for " + ticker + " - add a price column");
+        }
+        if (price.signum() <= 0) {
+            throw new IllegalArgumentException("Price must be positive");
+        }
+
+        String currency = cell(cells, columns, "currency").toUpperCase(Locale.ROOT);
+        if (currency.isEmpty()) {
+            currency = "USD";
+        } else if (!currency.equals("USD") && !currency.equals("ZAR")) {
+            throw new IllegalArgumentException("Unsupported currency: " + currency + " (use USD or ZAR)");
+        }
+        // A looked-up price is already in USD, whatever the lot's currency
+        boolean zarPrice = currency.equals("ZAR") && !priceCell.isEmpty();
+
+        // The rate of the lot's day: given, or today's for a lot bought today, otherwise unknown
+        LocalDateTime date = date(cell(cells, columns, "date"));
+        String rateCell = cell(cells, columns, "exchangerate");
+        BigDecimal exchangeRate = !rateCell.isEmpty() ? decimal(rateCell, "exchangeRate")
+                : date.toLocalDate().equals(LocalDate.now()) ? run.usdRate() : null;
+        if (exchangeRate != null && exchangeRate.signum() <= 0) {
+            throw new IllegalArgumentException("Exchange rate must be positive");
+        }
+        if (zarPrice && exchangeRate == null) {
+            throw new IllegalArgumentException("ZAR price dated " + date.toLocalDate()
+                    + " needs an exchangeRate column (USD/ZAR on that day)");
+        }
+
+        // USD price at the buy_price column's 4 decimals (ZAR converted in one HALF_DOWN division),
+        // BUY value in cents like Purchase.value
+        BigDecimal priceUsd = zarPrice
+                ? price.divide(exchangeRate, 4, RoundingMode.HALF_DOWN)
+                : price.setScale(4, RoundingMode.HALF_UP);
+        if (priceUsd.signum() <= 0) {
+            throw new IllegalArgumentException("Price rounds to zero in USD");
+        }
+        if (priceUsd.compareTo(MAX_PRICE) >= 0) {
+            throw new IllegalArgumentException("Price out of range (must be below " + MAX_PRICE.toPlainString() + " USD)");
+        }
+        if (quantity.compareTo(Purchase.MAX_SHARES) >= 0) {
+            throw new IllegalArgumentException("Quantity out of range (must be below " + Purchase.MAX_SHARES.toPlainString() + ")");
+        }
+        BigDecimal valueUsd = Purchase.value(quantity, priceUsd);
+
+        String name = cell(cells, columns, "name");
+        if (name.isEmpty()) {
+            name = run.name(ticker);
+        }
+        String assetType = cell(cells, columns, "assettype");
+        assetType = assetType.isEmpty() ? "STOCK" : assetType.toUpperCase(Locale.ROOT);
+        if (name.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Name too long (max " + MAX_TEXT_LENGTH + " characters)");
+        }
+        if (assetType.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Asset type too long (max " + MAX_TEXT_LENGTH + " characters)");
+        }
+
+        return new Lot(line, ticker, name, assetType, quantity, priceUsd, exchangeRate, valueUsd, date);
+    }
+
+    // Assets first (one batch, ids come back from the same round trip), then one BUY log per asset
+    private void insertBatch(Long userId, List<Lot> lots) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keys = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(
+                        "INSERT INTO assets (name, ticker, asset_type, quantity, buy_price, exchange_rate_at_buy, " +
+                        "currency, purchase_date, last_updated, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                        new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Lot lot = lots.get(i);
+                        ps.setString(1, lot.name());
+                        ps.setString(2, lot.ticker());
+                        ps.setString(3, lot.assetType());
+                        ps.setBigDecimal(4, lot.quantity());
+                        ps.setBigDecimal(5, lot.priceUsd());
+                        ps.setBigDecimal(6, lot.exchangeRate());
+                        ps.setString(7, "USD");
+                        ps.setTimestamp(8, Timestamp.valueOf(lot.date()));
+                        ps.setTimestamp(9, now);
+                        ps.setLong(10, userId);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return lots.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> ids = keys.getKeyList();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transactions (asset_id, type, value_at_time, timestamp) VALUES (?, 'BUY', ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Lot lot = lots.get(i);
+                        ps.setLong(1, ((Number) ids.get(i).get("id")).longValue());
+                        ps.setBigDecimal(2, lot.valueUsd());
+                        ps.setTimestamp(3, Timestamp.valueOf(lot.date()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return lots.size();
+                    }
+                });
+    }
+
+    private static Map<String, Integer> indexColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT).replaceAll("[\\s_\\-]", "");
+            columns.putIfAbsent(switch (name) {
+                case "symbol" -> "ticker";
+                case "qty", "shares", "units" -> "quantity";
+                case "buyprice", "unitprice", "cost" -> "price";
+                case "purchasedate", "tradedate" -> "date";
+                case "fxrate", "usdzar", "exchangerateatbuy" -> "exchangerate";
+                case "type" -> "assettype";
+                default -> name;
+            }, i);
+        }
+        return columns;
+    }
+
+    private static String cell(List<String> cells, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= cells.size() ? "" : cells.get(index).trim();
+    }
+
+    // Plain decimal with '.' as the point; a comma is only taken as grouping in an unambiguous 1,234.56
+    private static BigDecimal decimal(String value, String column) {
+        if (value.indexOf(',') >= 0) {
+            if (!GROUPED.matcher(value).matches()) {
+                throw new IllegalArgumentException("Ambiguous " + column + ": '" + value
+                        + "' (use '.' for decimals and no thousands separators)");
+            }
+            value = value.replace(",", "");
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": '" + value + "'");
+        }
+    }
+
+    // yyyy-MM-dd or yyyy-MM-ddTHH:mm[:ss]; empty means now
+    private static LocalDateTime date(String value) {
+        if (value.isEmpty()) {
+            return LocalDateTime.now();
+        }
+        try {
+            return value.length() <= 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: '" + value + "' (use yyyy-MM-dd)");
+        }
+    }
+
+    // Splits one CSV line, honouring double-quoted fields ("a,b" and "" escapes)
+    static List<String> splitCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        cells.add(current.toString());
+        return cells;
+    }
+
+    private static String stripBom(String header) {
+        return header.startsWith("\uFEFF") ? header.substring(1) : header;
+    }
+}
@@ -0,0 +1,114 @@
+package com.assetcompass.tracker.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The one HTTP client for AlphaVantage (used by AlphaVantageGateway, which every AlphaVantage lookup goes through).
+ *
+ * - A single JDK HttpClient, so connections to the upstream host are kept alive and reused.
+ * - Strict connect and per-request timeouts: a slow upstream fails fast instead of pinning a thread.
+ * - Async sends, completed on virtual threads.
+ * - Bodies come back as bytes and are decoded by shared, pre-built ObjectReaders straight into
+ *   typed records (see AlphaVantageResponses) - no JsonNode tree, no ObjectMapper per call.
+ */
+@Component
+@ConditionalOnProperty(name = "app.market-data.provider", havingValue = "alphavantage", matchIfMissing = true)
+public class MarketDataHttpClient {
+
+    private final String baseUrl;
+    private final String apiKey;
+    private final Duration requestTimeout;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+
+    private final ObjectReader reader;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public MarketDataHttpClient(ObjectMapper objectMapper,
+                                @Value("${app.alphavantage.base-url:https://www.alphavantage.co/query}") String baseUrl,
+                                @Value("${app.alphavantage.key}") String apiKey,
+                                @Value("${app.market-data.http.connect-timeout-ms:3000}") long connectTimeoutMillis,
+                                @Value("${app.market-data.http.request-timeout-ms:8000}") long requestTimeoutMillis,
+                                @Value("${app.market-data.http.keep-alive-seconds:120}") long keepAliveSeconds) {
+        this.baseUrl = baseUrl.endsWith("?") ? baseUrl : baseUrl + "?";
+        this.apiKey = encode(apiKey);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+
+        // Idle pooled connections are closed after this long (read by the JDK when the first client is built)
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds));
+        }
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+
+        this.reader = objectMapper.reader().without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Sends "query" (e.g. "function=GLOBAL_QUOTE&symbol=AAPL", values already encoded) and completes with the raw body.
+     * Fails with the HTTP status for anything but 200, or with HttpTimeoutException past the request timeout.
+     * Throws IllegalArgumentException straight away if no request can be built from the query (nothing is sent).
+     */
+    public CompletableFuture<byte[]> getAsync(String query) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + query + "&apikey=" + apiKey))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("Market data upstream returned HTTP " + response.statusCode());
+                    }
+                    return response.body();
+                });
+    }
+
+    // Every query value goes through here, so spaces, '&' or '=' in user input can't break or extend the URL
+    public static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a body into one of the AlphaVantageResponses records.
+     */
+    public <T> T decode(byte[] body, Class<T> type) {
+        try {
+            return readers.computeIfAbsent(type, reader::forType).readValue(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decode " + type.getSimpleName(), e);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        httpClient.shutdownNow();
+        executor.shutdownNow();
+    }
+}
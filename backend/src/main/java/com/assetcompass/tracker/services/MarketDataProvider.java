@@ -0,0 +1,41 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.services.SymbolIndex.SymbolMatch;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where quotes, FX rates and symbol search results come from.
+ * StockService and CurrencyService only talk to this interface; the implementation is
+ * picked with app.market-data.provider:
+ *   alphavantage (default) - the real API, behind the quota-aware AlphaVantageGateway
+ *   replay                 - local recorded data / seeded random walk, for load tests and benchmarks
+ *
+ * Lookups return null when the upstream answered but had no data (e.g. quota message),
+ * and throw when the call itself failed. Callers fall back in both cases.
+ */
+public interface MarketDataProvider {
+
+    // Lower ordinal = served first
+    enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    String name();
+
+    BigDecimal getQuote(String symbol, Priority priority);
+
+    BigDecimal getExchangeRate(String fromCurrency, String toCurrency, Priority priority);
+
+    List<SymbolMatch> searchSymbols(String keywords, Priority priority);
+
+    // Sustainable call rate, used to pace the background refresher. 0 per day means no daily cap.
+    int getRequestsPerMinute();
+
+    int getRequestsPerDay();
+
+    Map<String, Object> getStats();
+}
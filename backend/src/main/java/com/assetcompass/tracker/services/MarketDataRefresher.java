@@ -0,0 +1,194 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.models.MarketPrice;
+import com.assetcompass.tracker.repositories.AssetRepository;
+import com.assetcompass.tracker.repositories.AssetRepository.TickerHoldings;
+import com.assetcompass.tracker.repositories.MarketPriceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prices every distinct ticker in the "assets" table once per cycle - across ALL users - and writes
+ * the result to the shared "market_prices" table and onto every holding of that ticker.
+ * Refreshes, /api/me and /api/assets then read those prices locally instead of calling AlphaVantage.
+ *
+ * The cadence adapts to the number of tickers: each cycle only spends its share of the API quota.
+ * When not every ticker fits, the ones tried longest ago (never-priced first) go first, the most-held first among
+ * equals - so with a budget of b tickers per cycle, every ticker comes round within ceil(tickers / b) cycles.
+ */
+@Service
+@ConditionalOnProperty(name = "app.market-refresh.enabled", havingValue = "true", matchIfMissing = true)
+public class MarketDataRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketDataRefresher.class);
+
+    private final AssetRepository assetRepository;
+    private final MarketPriceRepository marketPriceRepository;
+    private final StockService stockService;
+    private final MarketDataProvider marketData;
+    private final PortfolioValuationService portfolioValuationService;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Fraction of the upstream quota the refresher may use (the rest is kept for users)
+    @Value("${app.market-refresh.quota-share:0.5}")
+    private double quotaShare;
+
+    @Value("${app.market-refresh.min-interval-seconds:300}")
+    private long minIntervalSeconds;
+
+    @Value("${app.market-refresh.max-interval-seconds:21600}")
+    private long maxIntervalSeconds;
+
+    // Grows after cycles where the upstream kept failing, resets after a clean cycle
+    private int backoffFactor = 1;
+
+    // When each ticker was last tried, priced or not - a ticker that keeps failing mustn't hold the front of the line
+    private final Map<String, LocalDateTime> lastAttempt = new ConcurrentHashMap<>();
+
+    public MarketDataRefresher(AssetRepository assetRepository,
+                               MarketPriceRepository marketPriceRepository,
+                               StockService stockService,
+                               MarketDataProvider marketData,
+                               PortfolioValuationService portfolioValuationService,
+                               TaskScheduler taskScheduler,
+                               PlatformTransactionManager transactionManager,
+                               ApplicationEventPublisher eventPublisher) {
+        this.assetRepository = assetRepository;
+        this.marketPriceRepository = marketPriceRepository;
+        this.stockService = stockService;
+        this.marketData = marketData;
+        this.portfolioValuationService = portfolioValuationService;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduleNext(Duration.ofSeconds(minIntervalSeconds));
+    }
+
+    private void runCycle() {
+        Duration next = Duration.ofSeconds(maxIntervalSeconds);
+        try {
+            next = refreshOnce();
+        } catch (Exception e) {
+            log.warn("Market refresh cycle failed", e);
+        } finally {
+            scheduleNext(next);
+        }
+    }
+
+    /**
+     * Runs one cycle and returns how long to wait before the next one.
+     */
+    Duration refreshOnce() {
+        // 1. Distinct tickers across all users, most-held first
+        List<TickerHoldings> tickers = assetRepository.countHoldingsByTicker();
+        if (tickers.isEmpty()) {
+            return Duration.ofSeconds(maxIntervalSeconds);
+        }
+
+        // 2. Work out how many tickers fit in our share of the quota over the longest allowed cycle
+        int budget = (int) Math.max(1, Math.floor(callsAllowedWithin(Duration.ofSeconds(maxIntervalSeconds))));
+        List<TickerHoldings> batch = stalestFirst(tickers, budget);
+
+        // 3. Price each ticker once and share the result
+        int failures = 0;
+        for (TickerHoldings holdings : batch) {
+            lastAttempt.put(holdings.getTicker(), LocalDateTime.now());
+            BigDecimal price = stockService.getLivePriceInBackground(holdings.getTicker());
+            if (price == null) {
+                failures++;
+                continue;
+            }
+            store(holdings.getTicker(), price);
+        }
+
+        log.info("Market refresh: priced {}/{} tickers", batch.size() - failures, tickers.size());
+
+        // 4. Back off while the upstream is failing, otherwise pace the next cycle to the quota
+        backoffFactor = failures > batch.size() / 2 ? Math.min(backoffFactor * 2, 16) : 1;
+        return cadenceFor(batch.size()).multipliedBy(backoffFactor);
+    }
+
+    // The "budget" tickers priced (or tried) longest ago, never-priced ones first; keeps the most-held-first order on ties
+    private List<TickerHoldings> stalestFirst(List<TickerHoldings> tickers, int budget) {
+        Set<String> held = new HashSet<>();
+        tickers.forEach(holdings -> held.add(holdings.getTicker()));
+        lastAttempt.keySet().retainAll(held);
+        if (tickers.size() <= budget) {
+            return tickers;
+        }
+
+        Map<String, LocalDateTime> touched = new HashMap<>(lastAttempt);
+        for (MarketPrice price : marketPriceRepository.findAllById(held)) {
+            touched.merge(price.getTicker(), price.getUpdatedAt(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        return tickers.stream()
+                .sorted(Comparator.comparing((TickerHoldings holdings) -> touched.get(holdings.getTicker()),
+                        Comparator.nullsFirst(Comparator.naturalOrder())))
+                .limit(budget)
+                .toList();
+    }
+
+    private void store(String ticker, BigDecimal price) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            marketPriceRepository.save(new MarketPrice(ticker, price, now));
+            assetRepository.updatePriceForTicker(ticker, price, now);
+        });
+        portfolioValuationService.onTickerRepriced(ticker, price);
+        eventPublisher.publishEvent(new PriceUpdatedEvent(ticker, price));
+    }
+
+    // Shortest interval at which "calls" requests per cycle stay within our share of the quota
+    private Duration cadenceFor(int calls) {
+        double perMinute = marketData.getRequestsPerMinute() * quotaShare;
+        double seconds = calls / perMinute * 60;
+
+        if (marketData.getRequestsPerDay() > 0) {
+            double perDay = marketData.getRequestsPerDay() * quotaShare;
+            seconds = Math.max(seconds, calls / perDay * 86_400);
+        }
+
+        long clamped = Math.max(minIntervalSeconds, Math.min(maxIntervalSeconds, (long) Math.ceil(seconds)));
+        return Duration.ofSeconds(clamped);
+    }
+
+    private double callsAllowedWithin(Duration window) {
+        double minutes = window.toSeconds() / 60d;
+        double allowed = marketData.getRequestsPerMinute() * quotaShare * minutes;
+        if (marketData.getRequestsPerDay() > 0) {
+            allowed = Math.min(allowed, marketData.getRequestsPerDay() * quotaShare * minutes / 1440);
+        }
+        return allowed;
+    }
+
+    private void scheduleNext(Duration delay) {
+        taskScheduler.schedule(this::runCycle, Instant.now().plus(delay));
+    }
+}
@@ -0,0 +1,254 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.models.Asset;
+import com.assetcompass.tracker.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.assetcompass.tracker.util.FixedPoint.PRICE_SCALE;
+import static com.assetcompass.tracker.util.FixedPoint.QUANTITY_SCALE;
+import static com.assetcompass.tracker.util.FixedPoint.RATE_SCALE;
+import static com.assetcompass.tracker.util.FixedPoint.VALUE_SCALE;
+
+/**
+ * Running totals for one user's portfolio: value per currency, value per asset type and cost basis.
+ * Every change to a position adjusts the totals by its delta, so reading them never loops over assets.
+ * Not thread-safe on its own - PortfolioValuationService guards every call.
+ *
+ * Amounts are FixedPoint longs (value = quantity * price rounded HALF_UP to VALUE_SCALE) updated in place,
+ * so re-pricing allocates nothing; BigDecimal is only used for what comes in and goes out.
+ *
+ * A long holds quantities up to ~9.2e8 units and values up to ~9.2e12. A position past either limit
+ * (the column allows more) is kept in BigDecimal with the same rounding, and so is any part of a total
+ * that would overflow - such a user gets the same answers, just without the fast path.
+ */
+public class PortfolioAggregate {
+
+    private static final class Position {
+        final String ticker;
+        final String assetType;
+        final String currency;
+        final long quantity;          // FixedPoint at QUANTITY_SCALE...
+        final BigDecimal bigQuantity; // ...or this, when it doesn't fit a long (null otherwise)
+        final BigDecimal costBasis;   // At VALUE_SCALE
+        long value;                   // FixedPoint at VALUE_SCALE...
+        BigDecimal bigValue;          // ...or this, when it doesn't fit a long (null otherwise)
+
+        Position(String ticker, String assetType, String currency, long quantity, BigDecimal bigQuantity,
+                 BigDecimal costBasis) {
+            this.ticker = ticker;
+            this.assetType = assetType;
+            this.currency = currency;
+            this.quantity = quantity;
+            this.bigQuantity = bigQuantity;
+            this.costBasis = costBasis;
+        }
+
+        BigDecimal valueDecimal() {
+            return bigValue != null ? bigValue : FixedPoint.toDecimal(value, VALUE_SCALE);
+        }
+    }
+
+    // A running total at VALUE_SCALE, adjusted in place. "overflow" holds what didn't fit in "amount" (almost always 0)
+    private static final class Total {
+        long amount;
+        BigDecimal overflow = BigDecimal.ZERO;
+
+        void add(long delta) {
+            try {
+                amount = FixedPoint.add(amount, delta);
+            } catch (ArithmeticException e) {
+                overflow = overflow.add(FixedPoint.toDecimal(delta, VALUE_SCALE));
+            }
+        }
+
+        void add(BigDecimal delta) {
+            long raw;
+            try {
+                raw = FixedPoint.fromDecimal(delta, VALUE_SCALE, RoundingMode.HALF_UP);
+            } catch (ArithmeticException e) {
+                overflow = overflow.add(delta);
+                return;
+            }
+            add(raw);
+        }
+
+        BigDecimal toDecimal() {
+            BigDecimal decimal = FixedPoint.toDecimal(amount, VALUE_SCALE);
+            return overflow.signum() == 0 ? decimal : decimal.add(overflow);
+        }
+    }
+
+    private final Map<Long, Position> positions = new HashMap<>();
+
+    // Amounts are kept in each asset's own currency and only converted on read
+    private final Map<String, Total> valueByCurrency = new HashMap<>();
+    private final Map<String, Map<String, Total>> valueByTypeAndCurrency = new HashMap<>();
+    private final Map<String, Total> costBasisByCurrency = new HashMap<>();
+
+    void add(Asset asset, BigDecimal costBasis) {
+        remove(asset.getId());
+        long quantity = 0;
+        BigDecimal bigQuantity = null;
+        try {
+            quantity = FixedPoint.fromDecimal(asset.getQuantity(), QUANTITY_SCALE, RoundingMode.HALF_UP);
+        } catch (ArithmeticException e) {
+            bigQuantity = asset.getQuantity().setScale(QUANTITY_SCALE, RoundingMode.HALF_UP);
+        }
+        Position position = new Position(asset.getTicker().toUpperCase(), asset.getAssetType(),
+                asset.getCurrency().toUpperCase(), quantity, bigQuantity,
+                costBasis.setScale(VALUE_SCALE, RoundingMode.HALF_UP));
+        setValue(position, asStored(asset.getBuyPrice()));
+        positions.put(asset.getId(), position);
+
+        if (position.bigValue == null) {
+            adjustValue(position, position.value);
+        } else {
+            adjustValue(position, position.bigValue);
+        }
+        total(costBasisByCurrency, position.currency).add(position.costBasis);
+    }
+
+    void updatePrice(Long assetId, BigDecimal newPrice) {
+        Position position = positions.get(assetId);
+        if (position == null) return;
+        reprice(position, asStored(newPrice));
+    }
+
+    // Same as updatePrice, for every position in this ticker
+    void updateTickerPrice(String ticker, BigDecimal newPrice) {
+        long price = asStored(newPrice);
+        for (Position position : positions.values()) {
+            if (position.ticker.equals(ticker)) {
+                reprice(position, price);
+            }
+        }
+    }
+
+    void remove(Long assetId) {
+        Position old = positions.remove(assetId);
+        if (old != null) {
+            if (old.bigValue == null) {
+                adjustValue(old, -old.value);
+            } else {
+                adjustValue(old, old.bigValue.negate());
+            }
+            total(costBasisByCurrency, old.currency).add(old.costBasis.negate());
+        }
+    }
+
+    /**
+     * Total value in ZAR: USD amounts are converted at the given rate, everything else is taken as-is.
+     */
+    BigDecimal netWorthZar(BigDecimal usdRate) {
+        return toZar(valueByCurrency, rate(usdRate));
+    }
+
+    BigDecimal costBasisZar(BigDecimal usdRate) {
+        return toZar(costBasisByCurrency, rate(usdRate));
+    }
+
+    Map<String, BigDecimal> allocationZar(BigDecimal usdRate) {
+        long rate = rate(usdRate);
+        Map<String, BigDecimal> allocation = new LinkedHashMap<>();
+        valueByTypeAndCurrency.forEach((type, amounts) -> allocation.put(type, toZar(amounts, rate)));
+        return allocation;
+    }
+
+    Map<String, BigDecimal> valueByCurrency() {
+        Map<String, BigDecimal> values = new HashMap<>();
+        valueByCurrency.forEach((currency, total) -> values.put(currency, total.toDecimal()));
+        return Map.copyOf(values);
+    }
+
+    private void reprice(Position position, long price) {
+        long oldValue = position.value;
+        BigDecimal oldBigValue = position.bigValue;
+        setValue(position, price);
+
+        if (oldBigValue == null && position.bigValue == null) {
+            adjustValue(position, FixedPoint.subtract(position.value, oldValue));
+        } else {
+            BigDecimal old = oldBigValue != null ? oldBigValue : FixedPoint.toDecimal(oldValue, VALUE_SCALE);
+            adjustValue(position, position.valueDecimal().subtract(old));
+        }
+    }
+
+    private static void setValue(Position position, long price) {
+        if (position.bigQuantity == null) {
+            try {
+                position.value = FixedPoint.multiply(position.quantity, QUANTITY_SCALE, price, PRICE_SCALE,
+                        VALUE_SCALE, RoundingMode.HALF_UP);
+                position.bigValue = null;
+                return;
+            } catch (ArithmeticException e) {
+                // Past ~9.2e12 - priced in BigDecimal below until it fits again
+            }
+        }
+        BigDecimal quantity = position.bigQuantity != null
+                ? position.bigQuantity : FixedPoint.toDecimal(position.quantity, QUANTITY_SCALE);
+        position.value = 0;
+        position.bigValue = quantity.multiply(FixedPoint.toDecimal(price, PRICE_SCALE))
+                .setScale(VALUE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private void adjustValue(Position position, long delta) {
+        total(valueByCurrency, position.currency).add(delta);
+        total(valueByTypeAndCurrency.computeIfAbsent(position.assetType, type -> new HashMap<>()), position.currency)
+                .add(delta);
+    }
+
+    private void adjustValue(Position position, BigDecimal delta) {
+        total(valueByCurrency, position.currency).add(delta);
+        total(valueByTypeAndCurrency.computeIfAbsent(position.assetType, type -> new HashMap<>()), position.currency)
+                .add(delta);
+    }
+
+    private static Total total(Map<String, Total> totals, String currency) {
+        return totals.computeIfAbsent(currency, key -> new Total());
+    }
+
+    // Prices are NUMERIC(20,4) in the database - round the same way so a rebuild gives the same totals
+    private static long asStored(BigDecimal price) {
+        return FixedPoint.fromDecimal(price, PRICE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static long rate(BigDecimal usdRate) {
+        return FixedPoint.fromDecimal(usdRate, RATE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal toZar(Map<String, Total> amounts, long usdRate) {
+        for (Total amount : amounts.values()) {
+            if (amount.overflow.signum() != 0) return toZarExact(amounts, usdRate);
+        }
+        try {
+            long total = 0;
+            for (Map.Entry<String, Total> entry : amounts.entrySet()) {
+                long amount = entry.getValue().amount;
+                total = "USD".equals(entry.getKey())
+                        ? FixedPoint.add(total, FixedPoint.multiply(amount, VALUE_SCALE, usdRate, RATE_SCALE, VALUE_SCALE, RoundingMode.HALF_UP))
+                        : FixedPoint.add(total, amount);
+            }
+            return FixedPoint.toDecimal(total, VALUE_SCALE);
+        } catch (ArithmeticException e) {
+            return toZarExact(amounts, usdRate);
+        }
+    }
+
+    // Same sum and rounding in BigDecimal, for totals past what a long holds
+    private static BigDecimal toZarExact(Map<String, Total> amounts, long usdRate) {
+        BigDecimal rate = FixedPoint.toDecimal(usdRate, RATE_SCALE);
+        BigDecimal total = BigDecimal.ZERO.setScale(VALUE_SCALE);
+        for (Map.Entry<String, Total> entry : amounts.entrySet()) {
+            BigDecimal amount = entry.getValue().toDecimal();
+            total = total.add("USD".equals(entry.getKey())
+                    ? amount.multiply(rate).setScale(VALUE_SCALE, RoundingMode.HALF_UP)
+                    : amount);
+        }
+        return total;
+    }
+}
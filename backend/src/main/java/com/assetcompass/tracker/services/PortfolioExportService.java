@@ -0,0 +1,277 @@
+package com.assetcompass.tracker.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams a user's holdings and history straight from a database cursor to the response.
+ * Rows are fetched "fetch-size" at a time inside a read-only transaction (Postgres only uses a
+ * server-side cursor when autocommit is off) and written out one by one, so heap use does not grow
+ * with the number of rows. History merges "transactions" rows with the asset's valuation series.
+ *
+ * Each running export pins a pooled connection for its whole download, so only "max-concurrent" run at
+ * once (callers take a slot with tryAcquireSlot and give it back with releaseSlot).
+ */
+@Service
+public class PortfolioExportService {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unknown format: " + value + " (use csv or ndjson)");
+            }
+        }
+    }
+
+    private static final String[] ASSET_COLUMNS = {"id", "name", "ticker", "assetType", "quantity", "buyPrice",
+            "exchangeRateAtBuy", "currency", "purchaseDate", "lastUpdated"};
+
+    private static final String[] HISTORY_COLUMNS = {"assetId", "ticker", "id", "type", "valueAtTime", "timestamp"};
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final JdbcTemplate streamingJdbc;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ValuationSeriesStore seriesStore;
+    private final ObjectMapper objectMapper;
+    private final Semaphore slots;
+
+    public PortfolioExportService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ValuationSeriesStore seriesStore,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.export.fetch-size:1000}") int fetchSize,
+                                  @Value("${app.export.max-concurrent:2}") int maxConcurrent) {
+        // Own copy so the fetch size doesn't leak into other queries
+        this.streamingJdbc = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbc.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.seriesStore = seriesStore;
+        this.objectMapper = objectMapper;
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    // False when max-concurrent exports are already running - the caller should answer 503, not queue
+    public boolean tryAcquireSlot() {
+        return slots.tryAcquire();
+    }
+
+    public void releaseSlot() {
+        slots.release();
+    }
+
+    public void exportAssets(Long userId, Format format, OutputStream out) throws IOException {
+        try (RowWriter writer = open(format, out, ASSET_COLUMNS)) {
+            readOnlyTransaction.executeWithoutResult(status -> streamingJdbc.query(
+                    "SELECT id, name, ticker, asset_type, quantity, buy_price, exchange_rate_at_buy, currency, " +
+                    "purchase_date, last_updated FROM assets WHERE user_id = ? ORDER BY id",
+                    (RowCallbackHandler) rs -> writer.row(rs.getLong("id"), rs.getString("name"), rs.getString("ticker"),
+                            rs.getString("asset_type"), rs.getBigDecimal("quantity"), rs.getBigDecimal("buy_price"),
+                            rs.getBigDecimal("exchange_rate_at_buy"), rs.getString("currency"),
+                            toLocalDateTime(rs.getTimestamp("purchase_date")),
+                            toLocalDateTime(rs.getTimestamp("last_updated"))),
+                    userId));
+        }
+    }
+
+    public void exportHistory(Long userId, Format format, OutputStream out) throws IOException {
+        try (RowWriter writer = open(format, out, HISTORY_COLUMNS)) {
+            HistoryMerger merger = new HistoryMerger(writer);
+            readOnlyTransaction.executeWithoutResult(status -> streamingJdbc.query(
+                    // LEFT JOIN: assets without transactions still get their series exported
+                    "SELECT a.id AS asset_id, a.ticker, t.id, t.type, t.value_at_time, t.timestamp " +
+                    "FROM assets a LEFT JOIN transactions t ON t.asset_id = a.id " +
+                    "WHERE a.user_id = ? ORDER BY a.id, t.timestamp, t.id",
+                    (RowCallbackHandler) merger::accept, userId));
+            merger.finish();
+        }
+    }
+
+    // --- INTERNALS ---
+
+    // Per asset (rows arrive grouped by asset, oldest first): interleaves series points with the transaction rows
+    private final class HistoryMerger {
+        private final RowWriter writer;
+        private long assetId = -1;
+        private String ticker;
+        private ValuationSeriesStore.Cursor series;
+
+        HistoryMerger(RowWriter writer) {
+            this.writer = writer;
+        }
+
+        void accept(ResultSet rs) throws SQLException {
+            long rowAssetId = rs.getLong("asset_id");
+            if (rowAssetId != assetId) {
+                drainSeries(Long.MAX_VALUE);
+                assetId = rowAssetId;
+                ticker = rs.getString("ticker");
+                series = seriesStore.cursor(assetId);
+            }
+
+            long id = rs.getLong("id");
+            if (rs.wasNull()) {
+                return; // Asset without transactions
+            }
+            LocalDateTime timestamp = toLocalDateTime(rs.getTimestamp("timestamp"));
+            drainSeries(timestamp == null ? Long.MIN_VALUE : timestamp.atZone(ZONE).toInstant().toEpochMilli());
+            writer.row(assetId, ticker, id, rs.getString("type"), rs.getBigDecimal("value_at_time"), timestamp);
+        }
+
+        void finish() {
+            drainSeries(Long.MAX_VALUE);
+        }
+
+        private void drainSeries(long beforeMillis) {
+            while (series != null && series.hasNext() && series.peekMillis() < beforeMillis) {
+                ValuationSeriesStore.Point point = series.next();
+                writer.row(assetId, ticker, null, "PRICE_REFRESH", point.value(),
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(point.epochMillis()), ZONE));
+            }
+        }
+    }
+
+    private RowWriter open(Format format, OutputStream out, String[] columns) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvRowWriter(out, columns);
+            case NDJSON -> {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+                generator.setRootValueSeparator(null); // Rows are separated by our own newlines
+                yield new NdjsonRowWriter(generator, columns);
+            }
+        };
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        void row(Object... values);
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out, String[] columns) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+
+        @Override
+        public void row(Object... values) {
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) writer.write(',');
+                    writer.write(escape(values[i]));
+                }
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(Object value) {
+            if (value == null) return "";
+            String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                    || text.indexOf('\r') >= 0) {
+                return '"' + text.replace("\"", "\"\"") + '"';
+            }
+            return text;
+        }
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final String[] columns;
+
+        NdjsonRowWriter(JsonGenerator generator, String[] columns) {
+            this.generator = generator;
+            this.columns = columns;
+        }
+
+        @Override
+        public void row(Object... values) {
+            try {
+                generator.writeStartObject();
+                for (int i = 0; i < values.length; i++) {
+                    Object value = values[i];
+                    generator.writeFieldName(columns[i]);
+                    if (value == null) {
+                        generator.writeNull();
+                    } else if (value instanceof BigDecimal decimal) {
+                        generator.writeNumber(decimal);
+                    } else if (value instanceof Long number) {
+                        generator.writeNumber(number);
+                    } else {
+                        generator.writeString(value.toString());
+                    }
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
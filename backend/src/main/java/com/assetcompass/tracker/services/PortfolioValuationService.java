@@ -0,0 +1,204 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.models.Asset;
+import com.assetcompass.tracker.repositories.AssetRepository;
+import com.assetcompass.tracker.repositories.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps one PortfolioAggregate per user in memory, built from the database on first use
+ * and then updated incrementally whenever a position is bought, re-priced or deleted.
+ *
+ * Callers must report a change AFTER it is committed. If a change lands while an aggregate is
+ * being built, the freshly built one is not cached (the next read rebuilds it), so no update is lost.
+ *
+ * Aggregates are dropped after a TTL and, past max-users, least recently read first; a dropped
+ * aggregate is simply rebuilt on the next read. They are per instance: this assumes a single app
+ * instance. With more than one, another node's changes only show up here once the TTL forces a rebuild.
+ */
+@Service
+public class PortfolioValuationService {
+
+    private static final int STRIPES = 64;
+
+    private final AssetRepository assetRepository;
+    private final TransactionRepository transactionRepository;
+
+    private static final class Cached {
+        final PortfolioAggregate aggregate;
+        final long builtAt = System.currentTimeMillis();
+        volatile long lastReadAt = builtAt;
+
+        Cached(PortfolioAggregate aggregate) {
+            this.aggregate = aggregate;
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Cached> aggregates = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxUsers;
+
+    // Striped locks + change counters, so a build can tell whether it raced with an update
+    private final Object[] locks = new Object[STRIPES];
+    private final long[] changeCounts = new long[STRIPES];
+
+    public PortfolioValuationService(AssetRepository assetRepository,
+                                     TransactionRepository transactionRepository,
+                                     @Value("${app.portfolio.cache.ttl-minutes:30}") long ttlMinutes,
+                                     @Value("${app.portfolio.cache.max-users:10000}") int maxUsers) {
+        this.assetRepository = assetRepository;
+        this.transactionRepository = transactionRepository;
+        this.ttlMillis = ttlMinutes * 60_000L;
+        this.maxUsers = maxUsers;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    // --- READS ---
+
+    public BigDecimal getNetWorthZar(Long userId, BigDecimal usdRate) {
+        return read(userId, aggregate -> aggregate.netWorthZar(usdRate));
+    }
+
+    public BigDecimal getCostBasisZar(Long userId, BigDecimal usdRate) {
+        return read(userId, aggregate -> aggregate.costBasisZar(usdRate));
+    }
+
+    public Map<String, BigDecimal> getAllocationZar(Long userId, BigDecimal usdRate) {
+        return read(userId, aggregate -> aggregate.allocationZar(usdRate));
+    }
+
+    public Map<String, BigDecimal> getValueByCurrency(Long userId) {
+        return read(userId, PortfolioAggregate::valueByCurrency);
+    }
+
+    // --- INCREMENTAL UPDATES (call after the change is committed) ---
+
+    public void onAssetBought(Long userId, Asset asset, BigDecimal costBasis) {
+        mutate(userId, aggregate -> aggregate.add(asset, costBasis));
+    }
+
+    public void onPriceRefreshed(Long userId, Long assetId, BigDecimal newPrice) {
+        mutate(userId, aggregate -> aggregate.updatePrice(assetId, newPrice));
+    }
+
+    public void onAssetDeleted(Long userId, Long assetId) {
+        mutate(userId, aggregate -> aggregate.remove(assetId));
+    }
+
+    // A ticker was re-priced for every holder at once (background refresher)
+    public void onTickerRepriced(String ticker, BigDecimal newPrice) {
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (locks[i]) {
+                changeCounts[i]++;
+            }
+        }
+        aggregates.forEach((userId, cached) -> {
+            synchronized (locks[stripe(userId)]) {
+                cached.aggregate.updateTickerPrice(ticker.toUpperCase(), newPrice);
+            }
+        });
+    }
+
+    // Forget the user's aggregate; it is rebuilt from the database on the next read
+    public void invalidate(Long userId) {
+        synchronized (locks[stripe(userId)]) {
+            changeCounts[stripe(userId)]++;
+            aggregates.remove(userId);
+        }
+    }
+
+    // --- INTERNALS ---
+
+    private <T> T read(Long userId, Function<PortfolioAggregate, T> reader) {
+        int stripe = stripe(userId);
+        synchronized (locks[stripe]) {
+            Cached cached = aggregates.get(userId);
+            if (cached != null) {
+                long now = System.currentTimeMillis();
+                if (now - cached.builtAt <= ttlMillis) {
+                    cached.lastReadAt = now;
+                    return reader.apply(cached.aggregate);
+                }
+                aggregates.remove(userId, cached);
+            }
+        }
+
+        // Miss: build from the database outside the lock
+        long countBefore;
+        synchronized (locks[stripe]) {
+            countBefore = changeCounts[stripe];
+        }
+        PortfolioAggregate built = build(userId);
+
+        T result;
+        synchronized (locks[stripe]) {
+            if (changeCounts[stripe] != countBefore) {
+                // Something changed while we were building - answer from our copy but don't keep it
+                return reader.apply(built);
+            }
+            aggregates.putIfAbsent(userId, new Cached(built));
+            result = reader.apply(aggregates.get(userId).aggregate);
+        }
+        evictIfFull();
+        return result;
+    }
+
+    private void mutate(Long userId, Consumer<PortfolioAggregate> change) {
+        int stripe = stripe(userId);
+        synchronized (locks[stripe]) {
+            changeCounts[stripe]++;
+            Cached cached = aggregates.get(userId);
+            if (cached != null) {
+                change.accept(cached.aggregate);
+            }
+        }
+    }
+
+    // Over max-users: drop the least recently read tenth in one pass, so the scan doesn't run on every miss.
+    // No lock needed - a dropped aggregate is rebuilt from the committed data on the next read.
+    private void evictIfFull() {
+        if (aggregates.size() <= maxUsers) {
+            return;
+        }
+        int excess = aggregates.size() - maxUsers + Math.max(1, maxUsers / 10);
+        aggregates.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastReadAt))
+                .limit(excess)
+                .toList()
+                .forEach(entry -> aggregates.remove(entry.getKey(), entry.getValue()));
+    }
+
+    // One pass over the user's assets + their BUY logs (for cost basis)
+    private PortfolioAggregate build(Long userId) {
+        List<Asset> assets = assetRepository.findByUserId(userId);
+
+        Map<Long, BigDecimal> costBasis = new HashMap<>();
+        for (Object[] row : transactionRepository.sumBuyValueByAssetForUser(userId)) {
+            costBasis.put((Long) row[0], (BigDecimal) row[1]);
+        }
+
+        PortfolioAggregate aggregate = new PortfolioAggregate();
+        for (Asset asset : assets) {
+            // Older assets may have no BUY log - fall back to their current value
+            BigDecimal cost = costBasis.getOrDefault(asset.getId(), asset.getQuantity().multiply(asset.getBuyPrice()));
+            aggregate.add(asset, cost);
+        }
+        return aggregate;
+    }
+
+    private static int stripe(Long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+}
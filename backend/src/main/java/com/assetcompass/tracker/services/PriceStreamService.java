@@ -0,0 +1,269 @@
+package com.assetcompass.tracker.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live price push over Server-Sent Events.
+ *
+ * Subscribers are registered per ticker. A price update is serialized ONCE into a ready-made SSE frame
+ * and that same frame is queued for every subscriber of the ticker. Each subscriber then gets its own
+ * net-worth event (computed from the in-memory portfolio totals).
+ *
+ * Every connection has a small bounded queue drained by its own virtual thread: a slow client never
+ * blocks the others, and when its queue is full the oldest frame is dropped (prices supersede each other).
+ *
+ * A subscription only becomes live once Spring MVC has taken its emitter as the response body: an emitter
+ * that never reaches the client registers nothing and starts no thread.
+ */
+@Service
+public class PriceStreamService {
+
+    private final ObjectMapper objectMapper;
+    private final PortfolioValuationService portfolioValuationService;
+    private final CurrencyService currencyService;
+
+    private final ConcurrentHashMap<String, Set<Subscriber>> subscribersByTicker = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Fan-out runs off the publisher's thread, one event at a time so per-ticker order is kept
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("price-fan-out").factory());
+
+    private final AtomicLong framesDropped = new AtomicLong();
+
+    @Value("${app.stream.client-buffer:64}")
+    private int clientBuffer;
+
+    @Value("${app.stream.heartbeat-seconds:20}")
+    private long heartbeatSeconds;
+
+    public PriceStreamService(ObjectMapper objectMapper,
+                              PortfolioValuationService portfolioValuationService,
+                              CurrencyService currencyService) {
+        this.objectMapper = objectMapper;
+        this.portfolioValuationService = portfolioValuationService;
+        this.currencyService = currencyService;
+    }
+
+    // --- SUBSCRIPTIONS ---
+
+    public SseEmitter subscribe(Long userId, Collection<String> tickers) {
+        SubscriptionEmitter emitter = new SubscriptionEmitter();
+        emitter.subscriber = new Subscriber(userId, emitter, Set.copyOf(tickers));
+        return emitter;
+    }
+
+    // Runs when the emitter is handed to Spring MVC (see SubscriptionEmitter)
+    private void register(Subscriber subscriber) {
+        SseEmitter emitter = subscriber.emitter;
+        subscribers.add(subscriber);
+        for (String ticker : subscriber.tickers) {
+            subscribersByTicker.computeIfAbsent(ticker, t -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        // First frame: what we are streaming + the current net worth
+        Map<String, Object> hello = new LinkedHashMap<>();
+        hello.put("tickers", subscriber.tickers);
+        subscriber.offer(frame("subscribed", hello));
+        offerNetWorth(subscriber, currencyService.getUsdToZarRate());
+
+        Thread.ofVirtual().name("sse-writer-" + subscriber.userId).start(subscriber::drain);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", subscribers.size());
+        stats.put("tickers", subscribersByTicker.size());
+        stats.put("framesDropped", framesDropped.get());
+        return stats;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.close();
+        if (!subscribers.remove(subscriber)) return;
+        for (String ticker : subscriber.tickers) {
+            subscribersByTicker.computeIfPresent(ticker, (t, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    // --- FAN-OUT ---
+
+    @EventListener
+    public void onPriceUpdated(PriceUpdatedEvent event) {
+        if (subscribersByTicker.containsKey(event.ticker())) {
+            fanOut.execute(() -> publish(event));
+        }
+    }
+
+    private void publish(PriceUpdatedEvent event) {
+        Set<Subscriber> targets = subscribersByTicker.get(event.ticker());
+        if (targets == null || targets.isEmpty()) return;
+
+        // 1. One serialization for everyone watching this ticker
+        Map<String, Object> price = new LinkedHashMap<>();
+        price.put("ticker", event.ticker());
+        price.put("price", event.price());
+        price.put("at", event.at().toString());
+        Set<DataWithMediaType> priceFrame = frame("price", price);
+
+        // 2. Queue it, then a net-worth delta per subscriber (totals are already updated in memory)
+        BigDecimal usdRate = currencyService.getUsdToZarRate();
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(priceFrame);
+            offerNetWorth(subscriber, usdRate);
+        }
+    }
+
+    private void offerNetWorth(Subscriber subscriber, BigDecimal usdRate) {
+        BigDecimal netWorth = portfolioValuationService.getNetWorthZar(subscriber.userId, usdRate);
+        BigDecimal previous = subscriber.lastNetWorth;
+        if (previous != null && previous.compareTo(netWorth) == 0) return;
+        subscriber.lastNetWorth = netWorth;
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("netWorthZAR", netWorth);
+        payload.put("change", previous == null ? BigDecimal.ZERO : netWorth.subtract(previous));
+        subscriber.offer(frame("networth", payload));
+    }
+
+    private Set<DataWithMediaType> frame(String name, Object payload) {
+        try {
+            return SseEmitter.event()
+                    .name(name)
+                    .data(objectMapper.writeValueAsString(payload), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + name + " event", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOut.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    // --- ONE CONNECTION ---
+
+    private final class SubscriptionEmitter extends SseEmitter {
+        private Subscriber subscriber;
+
+        SubscriptionEmitter() {
+            super(0L); // No timeout - heartbeats detect dead clients
+        }
+
+        // Spring MVC calls this once it has taken the emitter as the response body, right before wiring it up
+        @Override
+        protected void extendResponse(ServerHttpResponse outputMessage) {
+            super.extendResponse(outputMessage);
+            register(subscriber);
+        }
+    }
+
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Set<String> tickers;
+
+        private final ArrayDeque<Set<DataWithMediaType>> queue = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private boolean closed;
+
+        // Last net worth sent, so unchanged totals are not sent again
+        private volatile BigDecimal lastNetWorth;
+
+        Subscriber(Long userId, SseEmitter emitter, Set<String> tickers) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.tickers = tickers;
+        }
+
+        void offer(Set<DataWithMediaType> frame) {
+            lock.lock();
+            try {
+                if (closed) return;
+                if (queue.size() >= clientBuffer) {
+                    queue.pollFirst(); // Drop the oldest - a newer price supersedes it
+                    framesDropped.incrementAndGet();
+                }
+                queue.addLast(frame);
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Writer loop (own virtual thread): blocking sends only ever stall this one client
+        void drain() {
+            try {
+                while (true) {
+                    Set<DataWithMediaType> next;
+                    lock.lock();
+                    try {
+                        if (queue.isEmpty() && !closed) {
+                            notEmpty.await(heartbeatSeconds, TimeUnit.SECONDS);
+                        }
+                        if (closed) return;
+                        next = queue.pollFirst();
+                    } finally {
+                        lock.unlock();
+                    }
+
+                    // ResponseBodyEmitter.send is synchronized: a write blocked on a full socket buffer pins this
+                    // writer's carrier thread until it completes (or the connection drops). Only the stalled client waits.
+                    if (next != null) {
+                        emitter.send(next);
+                    } else {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away - the emitter callbacks (or the line below) unregister us
+                unsubscribe(this);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                queue.clear();
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
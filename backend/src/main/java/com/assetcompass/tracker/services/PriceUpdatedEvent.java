@@ -0,0 +1,12 @@
+package com.assetcompass.tracker.services;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Published (after commit) whenever a ticker gets a new price - feeds the live price stream
+public record PriceUpdatedEvent(String ticker, BigDecimal price, Instant at) {
+
+    public PriceUpdatedEvent(String ticker, BigDecimal price) {
+        this(ticker.toUpperCase(), price, Instant.now());
+    }
+}
@@ -0,0 +1,35 @@
+package com.assetcompass.tracker.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The numbers behind a BUY: what "amount" (USD or ZAR) buys at a USD price, exactly as buyAsset has always
+ * worked it out - ZAR -> USD 2 decimals HALF_DOWN, shares 10 decimals HALF_DOWN, everything else at the
+ * scale it came in. These go back to the client as they are, so they stay in BigDecimal (FixedPoint is
+ * only used inside PortfolioAggregate).
+ */
+public record Purchase(BigDecimal priceUsd, BigDecimal investedUsd, BigDecimal shares, BigDecimal valueUsd) {
+
+    // assets.quantity is NUMERIC(20,10): at most 10 integer digits
+    public static final BigDecimal MAX_SHARES = BigDecimal.TEN.pow(10);
+
+    // Throws ArithmeticException when the amount buys more than the column can hold (or the price is zero)
+    public static Purchase of(BigDecimal amount, String currency, BigDecimal priceUsd, BigDecimal usdRate) {
+        BigDecimal investedUsd = amount;
+        if ("ZAR".equalsIgnoreCase(currency)) {
+            investedUsd = amount.divide(usdRate, 2, RoundingMode.HALF_DOWN);
+        }
+
+        BigDecimal shares = investedUsd.divide(priceUsd, 10, RoundingMode.HALF_DOWN);
+        if (shares.compareTo(MAX_SHARES) >= 0) {
+            throw new ArithmeticException("More than " + MAX_SHARES.toPlainString() + " shares");
+        }
+        return new Purchase(priceUsd, investedUsd, shares, value(shares, priceUsd));
+    }
+
+    // BUY value of "quantity" at a USD price, in cents HALF_UP (what the transactions column keeps)
+    public static BigDecimal value(BigDecimal quantity, BigDecimal priceUsd) {
+        return priceUsd.multiply(quantity).setScale(2, RoundingMode.HALF_UP);
+    }
+}
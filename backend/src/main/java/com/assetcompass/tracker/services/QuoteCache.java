@@ -0,0 +1,136 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.services.MarketDataProvider.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-process cache of live quotes, keyed by upper-case ticker.
+ * Entries expire after a TTL and the least recently used ticker is evicted once the cache is full.
+ * Concurrent misses for the same ticker share a single loader call (single-flight),
+ * so ten users refreshing AAPL at once cost one upstream request instead of ten.
+ * A load remembers the priority it runs at: an INTERACTIVE caller never waits behind a BACKGROUND load,
+ * it takes the load over at its own priority (the gateway coalesces the duplicate query and bumps it).
+ * Lookups are counted as "cache.lookups" (cache=quotes, result=hit|miss|joined).
+ */
+@Component
+public class QuoteCache {
+
+    private record Entry(BigDecimal price, long fetchedAtNanos) {}
+
+    private record Load(Priority priority, CompletableFuture<BigDecimal> result) {}
+
+    private final long ttlNanos;
+    private final int maxSize;
+
+    // Access-ordered LinkedHashMap gives us LRU eviction for free (guarded by "this")
+    private final LinkedHashMap<String, Entry> entries;
+
+    // Loads currently running, so concurrent misses can wait on the same result
+    private final ConcurrentHashMap<String, Load> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter joined;
+
+    public QuoteCache(MeterRegistry meterRegistry,
+                      @Value("${app.quotes.cache.ttl-seconds:60}") long ttlSeconds,
+                      @Value("${app.quotes.cache.max-size:500}") int maxSize) {
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > QuoteCache.this.maxSize;
+            }
+        };
+        this.hits = meterRegistry.counter("cache.lookups", "cache", "quotes", "result", "hit");
+        this.misses = meterRegistry.counter("cache.lookups", "cache", "quotes", "result", "miss");
+        this.joined = meterRegistry.counter("cache.lookups", "cache", "quotes", "result", "joined");
+        Gauge.builder("cache.size", this, QuoteCache::size).tag("cache", "quotes").register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached price for the ticker, or runs the loader exactly once across all
+     * concurrent callers of the same (or lower) priority. A null result from the loader is handed back
+     * but never cached, so the next call gets another chance at a real quote.
+     */
+    public BigDecimal get(String ticker, Priority priority, Function<String, BigDecimal> loader) {
+        String key = ticker.toUpperCase();
+
+        BigDecimal cached = getIfFresh(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        Load ours = new Load(priority, new CompletableFuture<>());
+        Load running = inFlight.putIfAbsent(key, ours);
+        while (running != null) {
+            if (running.priority().ordinal() <= priority.ordinal()) {
+                // Someone else is already fetching this ticker at our priority or better - wait for their result
+                joined.increment();
+                return running.result().join();
+            }
+            // A background load is running: take over at our priority, later callers join us instead
+            if (inFlight.replace(key, running, ours)) {
+                break;
+            }
+            running = inFlight.putIfAbsent(key, ours);
+        }
+
+        try {
+            // Re-check: a load may have finished between our miss and claiming the slot
+            BigDecimal price = getIfFresh(key);
+            if (price == null) {
+                misses.increment();
+                price = loader.apply(key);
+                if (price != null) {
+                    put(key, price);
+                }
+            }
+            ours.result().complete(price);
+            return price;
+        } catch (RuntimeException e) {
+            ours.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ours);
+        }
+    }
+
+    public synchronized BigDecimal getIfFresh(String ticker) {
+        Entry entry = entries.get(ticker.toUpperCase());
+        if (entry == null || System.nanoTime() - entry.fetchedAtNanos() > ttlNanos) {
+            return null;
+        }
+        return entry.price();
+    }
+
+    /**
+     * The last price we had for the ticker, however old (null once evicted).
+     * Used when the upstream is unavailable and a stale quote beats a made-up one.
+     */
+    public synchronized BigDecimal getStale(String ticker) {
+        Entry entry = entries.get(ticker.toUpperCase());
+        return entry == null ? null : entry.price();
+    }
+
+    public synchronized void put(String ticker, BigDecimal price) {
+        entries.put(ticker.toUpperCase(), new Entry(price, System.nanoTime()));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
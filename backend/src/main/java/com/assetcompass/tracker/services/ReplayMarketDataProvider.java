@@ -0,0 +1,268 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.services.SymbolIndex.SymbolMatch;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local, deterministic market data - no network, no quota. For load tests, benchmarks and offline dev.
+ *
+ * 1. If app.market-data.replay.file is set, recorded lines are replayed:
+ *      QUOTE,<symbol>,<price>                          (several lines per symbol = a sequence, replayed in a loop)
+ *      FX,<from>,<to>,<rate>
+ *      SYMBOL,<symbol>,<name>,<type>,<region>,<currency>
+ * 2. Anything not recorded follows a seeded random walk: every symbol gets its own generator
+ *    (seed ^ symbol), so the N-th quote of a symbol is the same on every run, whatever the call order.
+ * 3. Each call sleeps latency-ms (+ up to latency-jitter-ms) on the caller's thread, to mimic the upstream.
+ */
+@Component
+@ConditionalOnProperty(name = "app.market-data.provider", havingValue = "replay")
+public class ReplayMarketDataProvider implements MarketDataProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayMarketDataProvider.class);
+
+    private static final int SCALE = 4;
+
+    // Sensible starting points for the walks the app always asks for
+    private static final Map<String, BigDecimal> DEFAULT_RATES = Map.of(
+            "USD/ZAR", new BigDecimal("18.50"),
+            "BTC/USD", new BigDecimal("60000"),
+            "ETH/USD", new BigDecimal("3000"));
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${app.market-data.replay.file:}")
+    private String replayFile;
+
+    @Value("${app.market-data.replay.seed:42}")
+    private long seed;
+
+    // Standard deviation of one step of the walk (0.01 = about 1% per call)
+    @Value("${app.market-data.replay.volatility:0.01}")
+    private double volatility;
+
+    @Value("${app.market-data.replay.latency-ms:0}")
+    private long latencyMillis;
+
+    @Value("${app.market-data.replay.latency-jitter-ms:0}")
+    private long latencyJitterMillis;
+
+    // What the refresher paces itself to (no real quota here, so this is just a knob)
+    @Value("${app.market-data.replay.requests-per-minute:600}")
+    private int requestsPerMinute;
+
+    @Value("${app.market-data.replay.requests-per-day:0}")
+    private int requestsPerDay;
+
+    // --- RECORDED DATA (read-only after startup) ---
+    private final Map<String, List<BigDecimal>> recordedQuotes = new HashMap<>();
+    private final Map<String, BigDecimal> recordedRates = new HashMap<>();
+    private final List<SymbolMatch> recordedSymbols = new ArrayList<>();
+
+    // --- PER-SYMBOL STATE ---
+    private final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+
+    // --- STATS ---
+    private final LongAdder quotes = new LongAdder();
+    private final LongAdder rates = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+
+    public ReplayMarketDataProvider(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    void loadRecording() {
+        if (replayFile == null || replayFile.isBlank()) {
+            log.info("Replay market data: random walk (seed {})", seed);
+            return;
+        }
+
+        Resource resource = resourceLoader.getResource(replayFile);
+        if (!resource.exists()) {
+            log.warn("Replay file not found: {}. Using random walk only.", replayFile);
+            return;
+        }
+
+        int loaded = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] cols = line.split(",", -1);
+                switch (cols[0].trim().toUpperCase(Locale.ROOT)) {
+                    case "QUOTE" -> recordedQuotes.computeIfAbsent(key(cols[1]), k -> new ArrayList<>())
+                            .add(new BigDecimal(cols[2].trim()));
+                    case "FX" -> recordedRates.put(key(cols[1]) + "/" + key(cols[2]), new BigDecimal(cols[3].trim()));
+                    case "SYMBOL" -> recordedSymbols.add(new SymbolMatch(cols[1].trim(), cols[2].trim(),
+                            cols[3].trim(), cols[4].trim(), cols[5].trim()));
+                    default -> {
+                        continue; // Unknown record type
+                    }
+                }
+                loaded++;
+            }
+            log.info("Replay market data loaded {} records from {}", loaded, replayFile);
+        } catch (Exception e) {
+            log.warn("Failed to load replay file {}", replayFile, e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "replay";
+    }
+
+    @Override
+    public BigDecimal getQuote(String symbol, Priority priority) {
+        simulateLatency();
+        quotes.increment();
+
+        String ticker = key(symbol);
+        List<BigDecimal> recorded = recordedQuotes.get(ticker);
+        return series.computeIfAbsent("QUOTE:" + ticker, k -> recorded != null
+                ? Series.replay(recorded)
+                : Series.walk(seed ^ k.hashCode(), volatility, null)).next();
+    }
+
+    @Override
+    public BigDecimal getExchangeRate(String fromCurrency, String toCurrency, Priority priority) {
+        simulateLatency();
+        rates.increment();
+
+        String pair = key(fromCurrency) + "/" + key(toCurrency);
+        BigDecimal recorded = recordedRates.get(pair);
+        if (recorded != null) {
+            return recorded;
+        }
+        return series.computeIfAbsent("FX:" + pair, k -> Series.walk(seed ^ k.hashCode(), volatility, DEFAULT_RATES.get(pair))).next();
+    }
+
+    @Override
+    public List<SymbolMatch> searchSymbols(String keywords, Priority priority) {
+        simulateLatency();
+        searches.increment();
+
+        String query = key(keywords);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        if (recordedSymbols.isEmpty()) {
+            // Nothing recorded: one synthetic listing named after the query
+            return List.of(new SymbolMatch(query, query + " Replay Corp", "Equity", "United States", "USD"));
+        }
+
+        List<SymbolMatch> matches = new ArrayList<>();
+        for (SymbolMatch match : recordedSymbols) {
+            if (match.symbol().toUpperCase(Locale.ROOT).startsWith(query)
+                    || match.name().toUpperCase(Locale.ROOT).contains(query)) {
+                matches.add(match);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    @Override
+    public int getRequestsPerDay() {
+        return requestsPerDay;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("provider", name());
+        stats.put("seed", seed);
+        stats.put("recordedQuotes", recordedQuotes.size());
+        stats.put("recordedSymbols", recordedSymbols.size());
+        stats.put("activeSeries", series.size());
+        stats.put("quotes", quotes.sum());
+        stats.put("exchangeRates", rates.sum());
+        stats.put("searches", searches.sum());
+        stats.put("latencyMs", latencyMillis);
+        stats.put("latencyJitterMs", latencyJitterMillis);
+        return stats;
+    }
+
+    private void simulateLatency() {
+        long sleep = latencyMillis;
+        if (latencyJitterMillis > 0) {
+            sleep += ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1);
+        }
+        if (sleep <= 0) return;
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during simulated market data latency", e);
+        }
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // One symbol's price sequence: either a recorded loop or a random walk
+    private static final class Series {
+        private final List<BigDecimal> recorded;
+        private final SplittableRandom random;
+        private final double volatility;
+        private double price;
+        private int position;
+
+        private Series(List<BigDecimal> recorded, SplittableRandom random, double volatility, double price) {
+            this.recorded = recorded;
+            this.random = random;
+            this.volatility = volatility;
+            this.price = price;
+        }
+
+        static Series replay(List<BigDecimal> recorded) {
+            return new Series(recorded, null, 0, 0);
+        }
+
+        static Series walk(long seed, double volatility, BigDecimal start) {
+            SplittableRandom random = new SplittableRandom(seed);
+            // Unknown symbols start somewhere between 10 and 500
+            double first = start != null ? start.doubleValue() : 10 + random.nextDouble() * 490;
+            return new Series(null, random, volatility, first);
+        }
+
+        synchronized BigDecimal next() {
+            if (recorded != null) {
+                BigDecimal value = recorded.get(position);
+                position = (position + 1) % recorded.size();
+                return value;
+            }
+            // Geometric step, so the price never goes negative
+            price *= Math.exp(volatility * random.nextGaussian());
+            return BigDecimal.valueOf(price).setScale(SCALE, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -1,64 +1,198 @@
 package com.assetcompass.tracker.services;
 
+import com.assetcompass.tracker.config.RequestTiming;
+import com.assetcompass.tracker.models.MarketPrice;
+import com.assetcompass.tracker.repositories.MarketPriceRepository;
+import com.assetcompass.tracker.services.MarketDataProvider.Priority;
+import com.assetcompass.tracker.services.SymbolIndex.SymbolMatch;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class StockService {
 
-    @Value("${app.alphavantage.key}")
-    private String apiKey;
+    private static final Logger log = LoggerFactory.getLogger(StockService.class);
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // Prices written by the background refresher younger than this are used as-is
+    @Value("${app.market-refresh.max-age-seconds:3600}")
+    private long sharedPriceMaxAgeSeconds;
 
-    // 1. Get Live Price (With Fail-Safe)
+    private final MarketDataProvider marketData;
+    private final QuoteCache quoteCache;
+    private final MarketPriceRepository marketPriceRepository;
+    private final SymbolIndex symbolIndex;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private static final int SEARCH_LIMIT = 10;
+
+    public StockService(MarketDataProvider marketData,
+                        QuoteCache quoteCache,
+                        MarketPriceRepository marketPriceRepository,
+                        SymbolIndex symbolIndex,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry) {
+        this.marketData = marketData;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.quoteCache = quoteCache;
+        this.marketPriceRepository = marketPriceRepository;
+        this.symbolIndex = symbolIndex;
+    }
+
+    // 1. Get Live Price (Cached -> Shared Price Table -> Market Data Provider -> Last Known Price -> Fail-Safe)
     public BigDecimal getStockPrice(String ticker) {
-        String url = "https://www.alphavantage.co/query?function=GLOBAL_QUOTE&symbol=" + ticker + "&apikey=" + apiKey;
+        try (RequestTiming.Phase phase = RequestTiming.start("quote")) {
+            return resolveStockPrice(ticker);
+        }
+    }
 
-        try {
-            String response = restTemplate.getForObject(url, String.class);
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response);
+    private BigDecimal resolveStockPrice(String ticker) {
+        BigDecimal livePrice = quoteCache.get(ticker, Priority.INTERACTIVE, this::loadPrice);
+        if (livePrice != null) {
+            return livePrice;
+        }
+        BigDecimal lastKnown = getLastKnownPrice(ticker);
+        if (lastKnown != null) {
+            countFallback("quote", "last_known");
+            return lastKnown;
+        }
+        countFallback("quote", "generated");
+        return generateFallbackPrice(ticker);
+    }
+
+    // Upstream down / circuit open: a stale real price beats a made-up one
+    private BigDecimal getLastKnownPrice(String ticker) {
+        BigDecimal stale = quoteCache.getStale(ticker);
+        if (stale != null) {
+            return stale;
+        }
+        return marketPriceRepository.findById(ticker.toUpperCase()).map(MarketPrice::getPrice).orElse(null);
+    }
+
+    /**
+     * Live price for background work: skips the shared price table and queues behind user requests.
+     * Returns null instead of a fallback, so made-up prices are never written back.
+     */
+    public BigDecimal getLivePriceInBackground(String ticker) {
+        return quoteCache.get(ticker, Priority.BACKGROUND, key -> fetchLivePrice(key, Priority.BACKGROUND));
+    }
+
+    /**
+     * A real price we already have, without going upstream: a fresh cached quote, or a recent one from the
+     * shared price table. Null when neither exists - never a fallback.
+     */
+    public BigDecimal getKnownPrice(String ticker) {
+        String key = ticker.toUpperCase();
+        BigDecimal cached = quoteCache.getIfFresh(key);
+        if (cached != null) {
+            return cached;
+        }
+        return marketPriceRepository.findById(key)
+                .filter(shared -> shared.getUpdatedAt().isAfter(LocalDateTime.now().minusSeconds(sharedPriceMaxAgeSeconds)))
+                .map(MarketPrice::getPrice)
+                .orElse(null);
+    }
 
-            JsonNode quote = root.path("Global Quote");
+    private BigDecimal loadPrice(String ticker) {
+        // A recent price from the background refresher saves us a trip upstream
+        MarketPrice shared = marketPriceRepository.findById(ticker).orElse(null);
+        if (shared != null && shared.getUpdatedAt().isAfter(LocalDateTime.now().minusSeconds(sharedPriceMaxAgeSeconds))) {
+            return shared.getPrice();
+        }
+        // Buy / refresh are user-facing, so they jump the queue
+        return fetchLivePrice(ticker, Priority.INTERACTIVE);
+    }
+
+    // Goes to the market data provider. Returns null (never cached) when the quote is unavailable.
+    private BigDecimal fetchLivePrice(String ticker, Priority priority) {
+        try {
+            BigDecimal price = marketData.getQuote(ticker, priority);
 
-            // If AlphaVantage returns the price successfully
-            if (quote.has("05. price")) {
-                String priceString = quote.get("05. price").asText();
-                return new BigDecimal(priceString);
+            // If the provider returns the price successfully
+            if (price != null) {
+                return price;
             } else {
-                // LIMIT REACHED: AlphaVantage blocked us. Use fallback data!
-                System.out.println("⚠️ AlphaVantage Limit Reached. Using Fallback Price for " + ticker);
-                return generateFallbackPrice(ticker);
+                // LIMIT REACHED: the provider blocked us. The caller falls back (and counts it in marketdata.fallbacks)
+                log.debug("{} gave no price for {}", marketData.name(), ticker);
+                return null;
             }
+        } catch (CircuitBreaker.OpenException e) {
+            return null; // Fail fast - the caller serves the last known price
         } catch (Exception e) {
-            System.err.println("Failed to fetch stock price for " + ticker + ". Using Fallback.");
-            return generateFallbackPrice(ticker);
+            log.warn("Failed to fetch stock price for {}: {}", ticker, e.toString());
+            return null;
         }
     }
 
-    // 2. Search for Stocks (With Fail-Safe)
+    // 2. Search for Stocks (Local Index First, With Fail-Safe)
     public String searchStocks(String query) {
-        String url = "https://www.alphavantage.co/query?function=SYMBOL_SEARCH&keywords=" + query + "&apikey=" + apiKey;
+        List<SymbolMatch> local = symbolIndex.search(query, SEARCH_LIMIT);
+        if (symbolIndex.canServeLocally(query, local.size())) {
+            return toBestMatchesJson(local);
+        }
 
         try {
-            String response = restTemplate.getForObject(url, String.class);
+            List<SymbolMatch> upstream = marketData.searchSymbols(query, Priority.BACKGROUND);
 
-            // If AlphaVantage sends an error/limit message instead of search results, use fallback
-            if (response == null || !response.contains("bestMatches")) {
-                System.out.println("⚠️ AlphaVantage Limit Reached. Using Fallback Search.");
-                return generateFallbackSearch(query);
+            // If the provider sends an error/limit message instead of search results, use fallback
+            if (upstream == null) {
+                log.debug("{} gave no search results for '{}'", marketData.name(), query);
+                return searchFallback(query, local);
             }
-            return response;
+
+            // Merge the upstream matches into the index, then answer from it (ranked the same way)
+            symbolIndex.addUpstreamResults(query, upstream);
+            return toBestMatchesJson(symbolIndex.search(query, SEARCH_LIMIT));
         } catch (Exception e) {
-            System.err.println("Search failed. Using fallback.");
+            log.warn("Search for '{}' failed: {}", query, e.toString());
+            return searchFallback(query, local);
+        }
+    }
+
+    private String searchFallback(String query, List<SymbolMatch> local) {
+        if (local.isEmpty()) {
+            countFallback("search", "generated");
             return generateFallbackSearch(query);
         }
+        countFallback("search", "local_index");
+        return toBestMatchesJson(local);
+    }
+
+    // "marketdata.fallbacks": answers served without a fresh upstream result (kind: quote | search | fx)
+    private void countFallback(String kind, String source) {
+        meterRegistry.counter("marketdata.fallbacks", "kind", kind, "source", source).increment();
+    }
+
+    // Same shape as AlphaVantage's SYMBOL_SEARCH, so the frontend doesn't care where results came from
+    private String toBestMatchesJson(List<SymbolMatch> matches) {
+        List<Map<String, String>> bestMatches = new ArrayList<>();
+        for (SymbolMatch match : matches) {
+            Map<String, String> node = new LinkedHashMap<>();
+            node.put("1. symbol", match.symbol());
+            node.put("2. name", match.name());
+            node.put("3. type", match.type());
+            node.put("4. region", match.region());
+            node.put("8. currency", match.currency());
+            bestMatches.add(node);
+        }
+        try {
+            return objectMapper.writeValueAsString(Map.of("bestMatches", bestMatches));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize search results", e);
+        }
     }
 
     // --- PORTFOLIO DEMO FALLBACKS ---
@@ -84,4 +218,4 @@ public class StockService {
             }
             """, safeQuery, safeQuery, safeQuery, safeQuery);
     }
-}
\ No newline at end of file
+}
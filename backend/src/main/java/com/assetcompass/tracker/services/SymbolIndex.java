@@ -0,0 +1,202 @@
+package com.assetcompass.tracker.services;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Local, in-memory index of tradable symbols for typeahead search.
+ * Seeded from a listing file (AlphaVantage LISTING_STATUS CSV format) and grown with every
+ * upstream SYMBOL_SEARCH result, so repeated keystrokes are answered from memory.
+ *
+ * Lookups are prefix range scans over sorted maps: one keyed by symbol, one keyed by each word of the name.
+ */
+@Component
+public class SymbolIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SymbolIndex.class);
+
+    public record SymbolMatch(String symbol, String name, String type, String region, String currency) {}
+
+    // How many candidates we look at per prefix scan before ranking (keeps 1-letter queries cheap)
+    private static final int SCAN_FACTOR = 4;
+
+    private final ConcurrentSkipListMap<String, SymbolMatch> bySymbol = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Set<String>> byNameWord = new ConcurrentSkipListMap<>();
+
+    // Queries we already sent upstream - for those the index is as good as AlphaVantage.
+    // Query -> when it was asked, access-ordered so the least recently typed query is evicted first (guarded by itself)
+    private final LinkedHashMap<String, Long> searchedUpstream = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > maxSearchedQueries;
+        }
+    };
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${app.symbols.listing-file:classpath:symbols/listing.csv}")
+    private String listingFile;
+
+    // Serve from memory once we have at least this many matches
+    @Value("${app.symbols.min-local-hits:3}")
+    private int minLocalHits;
+
+    // Remembered upstream queries: at most this many, each for this long (then AlphaVantage is asked again)
+    @Value("${app.symbols.searched.max-size:5000}")
+    private int maxSearchedQueries;
+
+    @Value("${app.symbols.searched.ttl-hours:24}")
+    private long searchedTtlHours;
+
+    public SymbolIndex(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    void loadListing() {
+        if (listingFile == null || listingFile.isBlank()) {
+            return;
+        }
+
+        Resource resource = resourceLoader.getResource(listingFile);
+        if (!resource.exists()) {
+            log.warn("Symbol listing not found: {}", listingFile);
+            return;
+        }
+
+        int loaded = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            // symbol,name,exchange,assetType,ipoDate,delistingDate,status
+            String line = reader.readLine(); // header
+            while ((line = reader.readLine()) != null) {
+                String[] cols = line.split(",", -1);
+                if (cols.length < 4 || cols[0].isBlank()) {
+                    continue;
+                }
+                if (cols.length >= 7 && !cols[6].isBlank() && !"Active".equalsIgnoreCase(cols[6].trim())) {
+                    continue; // Delisted
+                }
+                // Listing files say "Stock" where SYMBOL_SEARCH says "Equity" - keep one vocabulary
+                String type = "Stock".equalsIgnoreCase(cols[3].trim()) ? "Equity" : cols[3].trim();
+                add(new SymbolMatch(cols[0].trim(), cols[1].trim(), type, "United States", "USD"));
+                loaded++;
+            }
+            log.info("Symbol index loaded {} listings from {}", loaded, listingFile);
+        } catch (Exception e) {
+            log.warn("Failed to load symbol listing {}", listingFile, e);
+        }
+    }
+
+    /**
+     * Ranked typeahead: exact symbol, then symbols starting with the query (shortest first),
+     * then names with a word starting with the query.
+     */
+    public List<SymbolMatch> search(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, SymbolMatch> results = new LinkedHashMap<>();
+
+        // 1. Symbol prefix matches
+        List<SymbolMatch> symbolHits = new ArrayList<>();
+        for (SymbolMatch match : prefixRange(bySymbol, prefix).values()) {
+            symbolHits.add(match);
+            if (symbolHits.size() >= limit * SCAN_FACTOR) break;
+        }
+        symbolHits.sort(Comparator
+                .comparing((SymbolMatch m) -> !normalize(m.symbol()).equals(prefix))
+                .thenComparingInt(m -> m.symbol().length())
+                .thenComparing(SymbolMatch::symbol));
+        for (SymbolMatch match : symbolHits) {
+            if (results.size() >= limit) break;
+            results.putIfAbsent(match.symbol(), match);
+        }
+
+        // 2. Name word prefix matches
+        if (results.size() < limit) {
+            scan:
+            for (Set<String> symbols : prefixRange(byNameWord, prefix).values()) {
+                for (String symbol : symbols) {
+                    if (results.size() >= limit) break scan;
+                    SymbolMatch match = bySymbol.get(symbol);
+                    if (match != null) {
+                        results.putIfAbsent(match.symbol(), match);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * True if "hits" local results are good enough to skip AlphaVantage for this query.
+     */
+    public boolean canServeLocally(String query, int hits) {
+        return hits >= minLocalHits || wasSearchedUpstream(normalize(query));
+    }
+
+    // Merges upstream results back in, so the next keystroke is served locally
+    public void addUpstreamResults(String query, List<SymbolMatch> matches) {
+        matches.forEach(this::add);
+        synchronized (searchedUpstream) {
+            searchedUpstream.put(normalize(query), System.currentTimeMillis());
+        }
+    }
+
+    private boolean wasSearchedUpstream(String query) {
+        synchronized (searchedUpstream) {
+            Long searchedAt = searchedUpstream.get(query);
+            if (searchedAt == null) {
+                return false;
+            }
+            if (System.currentTimeMillis() - searchedAt > searchedTtlHours * 3_600_000L) {
+                searchedUpstream.remove(query);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    public int size() {
+        return bySymbol.size();
+    }
+
+    private void add(SymbolMatch match) {
+        String key = normalize(match.symbol());
+        bySymbol.put(key, match);
+        for (String word : normalize(match.name()).split("[^A-Z0-9]+")) {
+            if (!word.isEmpty()) {
+                byNameWord.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        }
+    }
+
+    private static <V> NavigableMap<String, V> prefixRange(ConcurrentSkipListMap<String, V> map, String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toUpperCase(Locale.ROOT);
+    }
+}
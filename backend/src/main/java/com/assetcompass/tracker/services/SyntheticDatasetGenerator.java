@@ -0,0 +1,443 @@
+package com.assetcompass.tracker.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills the database with synthetic users, holdings, BUY transactions and valuation histories for scale testing.
+ * Runs only with the "datagen" profile:
+ *   mvn spring-boot:run -Dspring-boot.run.profiles=datagen -Dspring-boot.run.arguments="--app.datagen.users=10000"
+ *
+ * - Reproducible: user N is generated from (seed, N) alone, so the same seed gives the same dataset
+ *   (amounts, tickers, dates relative to anchor-date) whatever the thread count or batch size.
+ *   Row ids are the database's, handed out in insert order: they only repeat with threads=1 on a fresh database.
+ * - Shapes: holdings per user and refreshes per holding are skewed (most users small, a few huge), tickers
+ *   follow a popularity curve, and each holding's price is a random walk from purchase date to the anchor.
+ *   The refreshes go where the app logs them: the valuation_points table (see ValuationSeriesStore).
+ * - Fast: users are written in chunks, one transaction per chunk, on several threads; rows go in JDBC batches
+ *   (rewritten into multi-row INSERTs by the Postgres driver, see reWriteBatchedInserts on the datasource URL).
+ *
+ * Every generated user can log in with app.datagen.password.
+ */
+@Service
+@Profile("datagen")
+public class SyntheticDatasetGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDatasetGenerator.class);
+
+    public record GenerationReport(long users, long assets, long transactions, long valuationPoints,
+                                   long durationMs, long rowsPerMinute) {}
+
+    // One holding, fully decided before it is written (transactions are re-derived from "seed")
+    private record AssetPlan(Long userId, String ticker, String assetType, BigDecimal quantity, BigDecimal firstPrice,
+                             BigDecimal lastPrice, LocalDateTime purchaseDate, LocalDateTime lastUpdated,
+                             BigDecimal usdRate, int refreshes, long seed) {}
+
+    // Most-held first: index i is picked with probability falling off like a power law
+    private static final String[] TICKERS = {
+            "AAPL", "MSFT", "NVDA", "AMZN", "GOOGL", "META", "TSLA", "BTC", "ETH", "BRK.B",
+            "JPM", "V", "UNH", "XOM", "JNJ", "MA", "PG", "HD", "AVGO", "COST",
+            "KO", "PEP", "NFLX", "AMD", "ADBE", "CRM", "ORCL", "INTC", "IBM", "DIS",
+            "NKE", "MCD", "PYPL", "UBER", "SHOP", "SPY", "QQQ", "VOO", "VTI", "ARKK"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ApplicationContext applicationContext;
+
+    @Value("${app.datagen.users:1000}")
+    private int users;
+
+    @Value("${app.datagen.assets-per-user.min:1}")
+    private int minAssets;
+
+    @Value("${app.datagen.assets-per-user.max:200}")
+    private int maxAssets;
+
+    // Higher = more users near "min" (1 = uniform)
+    @Value("${app.datagen.assets-per-user.skew:3.0}")
+    private double assetSkew;
+
+    @Value("${app.datagen.refreshes-per-asset.min:0}")
+    private int minRefreshes;
+
+    @Value("${app.datagen.refreshes-per-asset.max:500}")
+    private int maxRefreshes;
+
+    @Value("${app.datagen.refreshes-per-asset.skew:2.0}")
+    private double refreshSkew;
+
+    @Value("${app.datagen.history-days:365}")
+    private int historyDays;
+
+    // Dates are laid out back from this day (empty = today), so a fixed anchor gives the same data every run
+    @Value("${app.datagen.anchor-date:}")
+    private String anchorDate;
+
+    @Value("${app.datagen.seed:42}")
+    private long seed;
+
+    @Value("${app.datagen.users-per-chunk:100}")
+    private int usersPerChunk;
+
+    @Value("${app.datagen.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.datagen.threads:4}")
+    private int threads;
+
+    @Value("${app.datagen.password:datagen-password}")
+    private String password;
+
+    @Value("${app.datagen.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    private final LongAdder usersWritten = new LongAdder();
+    private final LongAdder assetsWritten = new LongAdder();
+    private final LongAdder transactionsWritten = new LongAdder();
+    private final LongAdder pointsWritten = new LongAdder();
+
+    public SyntheticDatasetGenerator(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     PasswordEncoder passwordEncoder,
+                                     ApplicationContext applicationContext) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        GenerationReport report = generate();
+        log.info("Dataset generated: {}", report);
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    public GenerationReport generate() throws Exception {
+        long started = System.currentTimeMillis();
+        LocalDateTime anchor = (anchorDate == null || anchorDate.isBlank()
+                ? LocalDate.now(ZoneOffset.UTC) : LocalDate.parse(anchorDate)).atStartOfDay();
+
+        // 1. Refuse to run twice with the same seed (emails are unique)
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM app_users WHERE email = ?", Integer.class, email(0));
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("Seed " + seed + " was already generated (" + email(0)
+                    + " exists). Use another app.datagen.seed.");
+        }
+
+        // One BCrypt hash for everyone - hashing per user would dominate the run
+        String passwordHash = passwordEncoder.encode(password);
+        log.info("Generating {} users (seed {}, anchor {}) on {} threads...", users, seed, anchor.toLocalDate(), threads);
+
+        // 2. Chunks of users, each in its own transaction
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> chunks = new ArrayList<>();
+            for (int first = 0; first < users; first += usersPerChunk) {
+                int from = first;
+                int to = Math.min(users, first + usersPerChunk);
+                chunks.add(workers.submit(() -> transactionTemplate.executeWithoutResult(
+                        status -> writeChunk(from, to, passwordHash, anchor))));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        // 3. Latest price per ticker, so the app doesn't start by asking upstream for every one
+        seedMarketPrices(anchor);
+
+        long duration = Math.max(1, System.currentTimeMillis() - started);
+        long rows = usersWritten.sum() + assetsWritten.sum() + transactionsWritten.sum() + pointsWritten.sum();
+        return new GenerationReport(usersWritten.sum(), assetsWritten.sum(), transactionsWritten.sum(),
+                pointsWritten.sum(), duration, rows * 60_000 / duration);
+    }
+
+    // --- ONE CHUNK OF USERS ---
+
+    private void writeChunk(int from, int to, String passwordHash, LocalDateTime anchor) {
+        long[] userIds = insertUsers(from, to, passwordHash);
+
+        List<AssetPlan> plans = new ArrayList<>();
+        for (int n = from; n < to; n++) {
+            planAssets(n, userIds[n - from], anchor, plans);
+            if (plans.size() >= batchSize) {
+                writeAssets(plans);
+                plans.clear();
+            }
+        }
+        writeAssets(plans);
+
+        long done = usersWritten.sum();
+        if (done / usersPerChunk % 10 == 0) {
+            log.info("  ... {} users, {} assets, {} transactions, {} valuation points",
+                    done, assetsWritten.sum(), transactionsWritten.sum(), pointsWritten.sum());
+        }
+    }
+
+    private long[] insertUsers(int from, int to, String passwordHash) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(
+                        "INSERT INTO app_users (email, password, full_name, role, is_enabled) VALUES (?, ?, ?, 'USER', TRUE)",
+                        new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, email(from + i));
+                        ps.setString(2, passwordHash);
+                        ps.setString(3, "Synthetic User " + (from + i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return to - from;
+                    }
+                },
+                keys);
+
+        long[] ids = keys.getKeyList().stream().mapToLong(row -> ((Number) row.get("id")).longValue()).toArray();
+        usersWritten.add(ids.length);
+        return ids;
+    }
+
+    // Everything about user N's holdings comes from (seed, N)
+    private void planAssets(int n, long userId, LocalDateTime anchor, List<AssetPlan> plans) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + n);
+        int holdings = skewed(random, minAssets, maxAssets, assetSkew);
+        long historyMinutes = historyDays * 24L * 60;
+
+        for (int a = 0; a < holdings; a++) {
+            String ticker = TICKERS[(int) (TICKERS.length * Math.pow(random.nextDouble(), 2))];
+            String assetType = switch (ticker) {
+                case "BTC", "ETH" -> "CRYPTO";
+                case "SPY", "QQQ", "VOO", "VTI", "ARKK" -> "ETF";
+                default -> "STOCK";
+            };
+            LocalDateTime purchased = anchor.minusMinutes(1 + random.nextLong(historyMinutes));
+            BigDecimal usdRate = BigDecimal.valueOf(17 + random.nextDouble() * 3).setScale(4, RoundingMode.HALF_UP);
+            BigDecimal firstPrice = basePrice(ticker, random);
+            BigDecimal invested = BigDecimal.valueOf(50 + random.nextDouble() * 20_000).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal quantity = invested.divide(firstPrice, 10, RoundingMode.HALF_DOWN);
+            int refreshes = skewed(random, minRefreshes, maxRefreshes, refreshSkew);
+            long assetSeed = random.nextLong();
+
+            // Walk once to learn the final price / last refresh (the transactions replay the same walk later)
+            BigDecimal lastPrice = firstPrice;
+            LocalDateTime lastUpdated = purchased;
+            for (PricePoint point : walk(assetSeed, firstPrice, purchased, anchor, refreshes)) {
+                lastPrice = point.price();
+                lastUpdated = point.at();
+            }
+            plans.add(new AssetPlan(userId, ticker, assetType, quantity, firstPrice, lastPrice, purchased,
+                    lastUpdated, usdRate, refreshes, assetSeed));
+        }
+    }
+
+    private void writeAssets(List<AssetPlan> plans) {
+        if (plans.isEmpty()) return;
+
+        // 1. Assets, ids back from the same round trip
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(
+                        "INSERT INTO assets (name, ticker, asset_type, quantity, buy_price, exchange_rate_at_buy, " +
+                        "currency, purchase_date, last_updated, user_id) VALUES (?, ?, ?, ?, ?, ?, 'USD', ?, ?, ?)",
+                        new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        AssetPlan plan = plans.get(i);
+                        ps.setString(1, plan.ticker() + " (synthetic)");
+                        ps.setString(2, plan.ticker());
+                        ps.setString(3, plan.assetType());
+                        ps.setBigDecimal(4, plan.quantity());
+                        ps.setBigDecimal(5, plan.lastPrice());
+                        ps.setBigDecimal(6, plan.usdRate());
+                        ps.setTimestamp(7, Timestamp.valueOf(plan.purchaseDate()));
+                        ps.setTimestamp(8, Timestamp.valueOf(plan.lastUpdated()));
+                        ps.setLong(9, plan.userId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return plans.size();
+                    }
+                },
+                keys);
+        List<Map<String, Object>> ids = keys.getKeyList();
+        assetsWritten.add(plans.size());
+
+        // 2. One BUY transaction per asset
+        List<Object[]> buys = new ArrayList<>(plans.size());
+        for (int i = 0; i < plans.size(); i++) {
+            AssetPlan plan = plans.get(i);
+            long assetId = ((Number) ids.get(i).get("id")).longValue();
+            buys.add(new Object[]{assetId, "BUY", plan.firstPrice().multiply(plan.quantity()), Timestamp.valueOf(plan.purchaseDate())});
+        }
+        insertTransactions(buys);
+
+        // 3. The refresh history as valuation points, streamed through a fixed-size batch
+        List<long[]> points = new ArrayList<>(batchSize);
+        for (int i = 0; i < plans.size(); i++) {
+            AssetPlan plan = plans.get(i);
+            long assetId = ((Number) ids.get(i).get("id")).longValue();
+
+            long previousMillis = Long.MIN_VALUE;
+            for (PricePoint point : walk(plan.seed(), plan.firstPrice(), plan.purchaseDate(), plan.lastUpdated(), plan.refreshes())) {
+                // Timestamps are the key within an asset: two refreshes in the same second are a millisecond apart
+                long millis = Math.max(point.at().toInstant(ZoneOffset.UTC).toEpochMilli(), previousMillis + 1);
+                previousMillis = millis;
+                long scaled = point.price().multiply(plan.quantity())
+                        .setScale(ValuationSeriesStore.SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                points.add(new long[]{assetId, millis, scaled});
+                if (points.size() >= batchSize) {
+                    insertValuationPoints(points);
+                    points.clear();
+                }
+            }
+        }
+        insertValuationPoints(points);
+    }
+
+    private void insertTransactions(List<Object[]> rows) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transactions (asset_id, type, value_at_time, timestamp) VALUES (?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Object[] row = rows.get(i);
+                        ps.setLong(1, (Long) row[0]);
+                        ps.setString(2, (String) row[1]);
+                        ps.setBigDecimal(3, ((BigDecimal) row[2]).setScale(4, RoundingMode.HALF_UP));
+                        ps.setTimestamp(4, (Timestamp) row[3]);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+        transactionsWritten.add(rows.size());
+    }
+
+    // [asset id, epoch millis, value x 10^ValuationSeriesStore.SCALE] - assets are new, so no MAX() guard needed
+    private void insertValuationPoints(List<long[]> points) {
+        if (points.isEmpty()) return;
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO valuation_points (asset_id, recorded_at, scaled_value) VALUES (?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        long[] point = points.get(i);
+                        ps.setLong(1, point[0]);
+                        ps.setLong(2, point[1]);
+                        ps.setLong(3, point[2]);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return points.size();
+                    }
+                });
+        pointsWritten.add(points.size());
+    }
+
+    private void seedMarketPrices(LocalDateTime anchor) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Timestamp updatedAt = Timestamp.valueOf(anchor);
+        for (String ticker : TICKERS) {
+            BigDecimal price = basePrice(ticker, random);
+            int updated = jdbcTemplate.update("UPDATE market_prices SET price = ?, updated_at = ? WHERE ticker = ?",
+                    price, updatedAt, ticker);
+            if (updated == 0) {
+                jdbcTemplate.update("INSERT INTO market_prices (ticker, price, updated_at) VALUES (?, ?, ?)",
+                        ticker, price, updatedAt);
+            }
+        }
+    }
+
+    // --- RANDOMNESS ---
+
+    private record PricePoint(LocalDateTime at, BigDecimal price) {}
+
+    // "count" refreshes between start and end, each a ~2% step of a geometric random walk
+    private static List<PricePoint> walk(long seed, BigDecimal startPrice, LocalDateTime start, LocalDateTime end, int count) {
+        if (count <= 0 || !end.isAfter(start)) return List.of();
+        SplittableRandom random = new SplittableRandom(seed);
+        long spanSeconds = Math.max(1, Duration.between(start, end).getSeconds());
+
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = 1 + random.nextLong(spanSeconds);
+        }
+        Arrays.sort(offsets);
+
+        List<PricePoint> points = new ArrayList<>(count);
+        double price = startPrice.doubleValue();
+        for (long offset : offsets) {
+            price *= Math.exp(0.02 * random.nextGaussian());
+            points.add(new PricePoint(start.plusSeconds(offset), BigDecimal.valueOf(price).setScale(4, RoundingMode.HALF_UP)));
+        }
+        return points;
+    }
+
+    // min..max, pulled towards min by "skew" (u^skew)
+    private static int skewed(SplittableRandom random, int min, int max, double skew) {
+        if (max <= min) return min;
+        return min + (int) Math.floor((max - min + 1) * Math.pow(random.nextDouble(), skew));
+    }
+
+    private static BigDecimal basePrice(String ticker, SplittableRandom random) {
+        double base = switch (ticker) {
+            case "BTC" -> 60_000;
+            case "ETH" -> 3_000;
+            default -> 20 + (Math.abs(ticker.hashCode()) % 480);
+        };
+        return BigDecimal.valueOf(base * (0.8 + random.nextDouble() * 0.4)).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private String email(int n) {
+        return "datagen-" + seed + "-" + n + "@assetcompass.test";
+    }
+}
@@ -0,0 +1,200 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.services.ValuationSeriesStore.RollupBatch;
+import com.assetcompass.tracker.services.ValuationSeriesStore.RollupPosition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the price history from growing forever.
+ * Price refreshes are logged to "valuation_points" (ValuationSeriesStore). Points older than the retention window
+ * are thinned to one per asset and day - the day's closing value - and the rest are deleted.
+ *
+ * Work is done in small batches, each in its own short transaction, in primary-key order - so locks are held
+ * briefly and a run that stops half-way simply does the rest next time.
+ *
+ * Second step, for databases from before valuation_points: PRICE_REFRESH rows still in "transactions" are
+ * rolled up the same way into PRICE_REFRESH_DAILY rows. Nothing writes PRICE_REFRESH rows any more, so once
+ * none are left this step is skipped. BUY (and any other) rows are never touched.
+ */
+@Service
+public class TransactionRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionRetentionService.class);
+
+    public record RetentionReport(LocalDateTime cutoff, long pointsDeleted, long legacyRowsDeleted,
+                                  long legacyDailyRowsWritten, int batches, long durationMs, Instant finishedAt) {}
+
+    private static final String RAW_TYPE = "PRICE_REFRESH";
+    private static final String DAILY_TYPE = "PRICE_REFRESH_DAILY";
+
+    // Days are cut in the same zone the bucketed history uses
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final ValuationSeriesStore valuationSeriesStore;
+
+    @Value("${app.retention.enabled:true}")
+    private boolean enabled;
+
+    // Points (and legacy refresh rows) younger than this many days are kept as they are
+    @Value("${app.retention.raw-days:30}")
+    private int rawDays;
+
+    @Value("${app.retention.batch-size:1000}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile RetentionReport lastReport;
+
+    // Set once "transactions" has no PRICE_REFRESH rows left
+    private volatile boolean legacyDone;
+
+    public TransactionRetentionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                       ValuationSeriesStore valuationSeriesStore) {
+        this.jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.valuationSeriesStore = valuationSeriesStore;
+    }
+
+    @Scheduled(cron = "${app.retention.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (!enabled) return;
+        try {
+            runOnce();
+        } catch (Exception e) {
+            log.warn("Retention run failed", e);
+        }
+    }
+
+    /**
+     * Compacts everything older than the retention window. Returns null if a run is already in progress.
+     */
+    public RetentionReport runOnce() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            long started = System.currentTimeMillis();
+
+            // Only whole days are rolled up, so a day is never split between raw and daily values
+            LocalDateTime cutoff = LocalDate.now(ZONE).minusDays(rawDays).atStartOfDay();
+            int batches = 0;
+
+            // 1. The valuation series
+            long cutoffMillis = cutoff.atZone(ZONE).toInstant().toEpochMilli();
+            long pointsDeleted = 0;
+            RollupPosition position = RollupPosition.START;
+            while (position != null) {
+                RollupBatch batch = valuationSeriesStore.rollupBatch(position, cutoffMillis, ZONE, batchSize);
+                pointsDeleted += batch.deleted();
+                position = batch.next();
+                batches++;
+            }
+
+            // 2. Legacy PRICE_REFRESH transactions, until there are none left
+            long legacyDeleted = 0;
+            long legacyWritten = 0;
+            if (!legacyDone) {
+                while (true) {
+                    long[] result = transactionTemplate.execute(status -> compactLegacyBatch(cutoff));
+                    if (result[0] == 0) break;
+                    legacyDeleted += result[0];
+                    legacyWritten += result[1];
+                    batches++;
+                }
+                legacyDone = !hasLegacyRows();
+            }
+
+            RetentionReport report = new RetentionReport(cutoff, pointsDeleted, legacyDeleted, legacyWritten, batches,
+                    System.currentTimeMillis() - started, Instant.now());
+            lastReport = report;
+            log.info("Retention: deleted {} valuation points older than {} (one kept per asset and day), "
+                            + "compacted {} legacy PRICE_REFRESH rows into {} daily rows ({} batches, {} ms)",
+                    pointsDeleted, cutoff.toLocalDate(), legacyDeleted, legacyWritten, batches, report.durationMs());
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public RetentionReport getLastReport() {
+        return lastReport;
+    }
+
+    // --- INTERNALS ---
+
+    private record DayKey(long assetId, LocalDateTime day) {}
+
+    private boolean hasLegacyRows() {
+        return Boolean.TRUE.equals(jdbc.query("SELECT 1 FROM transactions WHERE type = :type LIMIT 1",
+                new MapSqlParameterSource("type", RAW_TYPE), (ResultSetExtractor<Boolean>) ResultSet::next));
+    }
+
+    // One short transaction: rolls up the oldest batch of legacy raw rows and deletes them. Returns [deleted, written].
+    private long[] compactLegacyBatch(LocalDateTime cutoff) {
+        // 1. Oldest raw rows first. Rows of one asset-day may span batches, but they come in time order,
+        //    so the daily row always ends up holding the day's last value.
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("type", RAW_TYPE)
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("limit", batchSize);
+
+        List<Long> ids = new ArrayList<>(batchSize);
+        Map<DayKey, BigDecimal> closing = new LinkedHashMap<>();
+        jdbc.query("SELECT id, asset_id, timestamp, value_at_time FROM transactions " +
+                   "WHERE type = :type AND timestamp < :cutoff " +
+                   "ORDER BY timestamp, id LIMIT :limit FOR UPDATE", params, rs -> {
+            ids.add(rs.getLong("id"));
+            LocalDateTime day = rs.getTimestamp("timestamp").toLocalDateTime().toLocalDate().atStartOfDay();
+            closing.put(new DayKey(rs.getLong("asset_id"), day), rs.getBigDecimal("value_at_time"));
+        });
+        if (ids.isEmpty()) {
+            return new long[]{0, 0};
+        }
+
+        // 2. Upsert one daily row per asset-day seen in this batch
+        long written = 0;
+        for (Map.Entry<DayKey, BigDecimal> entry : closing.entrySet()) {
+            MapSqlParameterSource row = new MapSqlParameterSource()
+                    .addValue("assetId", entry.getKey().assetId())
+                    .addValue("day", Timestamp.valueOf(entry.getKey().day()))
+                    .addValue("value", entry.getValue())
+                    .addValue("type", DAILY_TYPE);
+            int updated = jdbc.update("UPDATE transactions SET value_at_time = :value " +
+                                      "WHERE asset_id = :assetId AND type = :type AND timestamp = :day", row);
+            if (updated == 0) {
+                jdbc.update("INSERT INTO transactions (asset_id, type, value_at_time, timestamp) " +
+                            "VALUES (:assetId, :type, :value, :day)", row);
+                written++;
+            }
+        }
+
+        // 3. Drop the raw rows we just rolled up
+        jdbc.update("DELETE FROM transactions WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids));
+        return new long[]{ids.size(), written};
+    }
+}
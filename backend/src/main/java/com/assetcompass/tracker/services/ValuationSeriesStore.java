@@ -0,0 +1,238 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.models.Asset;
+import com.assetcompass.tracker.util.FixedPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only store for the valuation history of each asset (what PRICE_REFRESH transactions used to hold).
+ *
+ * Points live in the compact "valuation_points" table: [asset_id][recorded_at epoch millis][value x 10^4],
+ * three BIGINTs keyed by (asset_id, recorded_at). Timestamps only ever grow per asset, so a range is one
+ * primary-key range scan - no entities, no BigDecimal until a point is handed out.
+ *
+ * Logging a valuation is best effort: append never throws, a failed write is reported and dropped
+ * (the asset itself has already been saved by then).
+ *
+ * Past the retention window (see TransactionRetentionService), each asset keeps only its last point per day.
+ */
+@Component
+public class ValuationSeriesStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ValuationSeriesStore.class);
+
+    public record Point(long epochMillis, long scaledValue) {
+        public BigDecimal value() {
+            return BigDecimal.valueOf(scaledValue, SCALE);
+        }
+    }
+
+    public interface PointVisitor {
+        void visit(long epochMillis, long scaledValue);
+    }
+
+    // Where a rollup continues (inclusive), in primary-key order
+    public record RollupPosition(long assetId, long epochMillis) {
+        public static final RollupPosition START = new RollupPosition(Long.MIN_VALUE, Long.MIN_VALUE);
+    }
+
+    // "next" is null once every point older than the cutoff has been seen
+    public record RollupBatch(int deleted, RollupPosition next) {}
+
+    public static final int SCALE = 4;
+
+    // Points per round trip when a cursor walks a whole series
+    private static final int CURSOR_PAGE_SIZE = 1000;
+
+    // Keeps timestamps strictly increasing per asset (clock steps back, two refreshes in the same millisecond)
+    private static final String INSERT_SQL =
+            "INSERT INTO valuation_points (asset_id, recorded_at, scaled_value) " +
+            "SELECT ?, GREATEST(?, COALESCE(MAX(recorded_at) + 1, 0)), ? FROM valuation_points WHERE asset_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ValuationSeriesStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * The asset's value at "price", in series units - or null (reported) when it doesn't fit a long,
+     * in which case the caller skips the point and the refresh itself stands.
+     */
+    public static Long scaledValueOf(Asset asset, BigDecimal price) {
+        try {
+            return asset.calculateCurrentValue(FixedPoint.fromDecimal(price, FixedPoint.PRICE_SCALE, RoundingMode.HALF_UP), SCALE);
+        } catch (ArithmeticException e) {
+            log.warn("Failed to log valuation of {}: {}", asset.getTicker(), e.getMessage());
+            return null;
+        }
+    }
+
+    // --- WRITES ---
+
+    public boolean append(Long assetId, long epochMillis, BigDecimal value) {
+        return append(assetId, epochMillis, value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    // "scaled" is the value in units of 10^-SCALE (a FixedPoint amount at scale 4). False if it could not be logged.
+    public boolean append(Long assetId, long epochMillis, long scaled) {
+        return appendAll(Map.of(assetId, scaled), epochMillis);
+    }
+
+    /**
+     * Logs one point per asset (asset id -> scaled value) at the same time, in one JDBC batch.
+     */
+    public boolean appendAll(Map<Long, Long> scaledByAsset, long epochMillis) {
+        if (scaledByAsset.isEmpty()) return true;
+
+        List<Object[]> rows = new ArrayList<>(scaledByAsset.size());
+        scaledByAsset.forEach((assetId, scaled) -> rows.add(new Object[]{assetId, epochMillis, scaled, assetId}));
+        try {
+            try {
+                insert(rows);
+            } catch (DuplicateKeyException e) {
+                // Lost a race with another writer for the same asset and millisecond - the retry sees its row
+                insert(rows);
+            }
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Failed to log valuation of asset(s) {}: {}", scaledByAsset.keySet(), e.getMessage());
+            return false;
+        }
+    }
+
+    public void delete(Long assetId) {
+        jdbcTemplate.update("DELETE FROM valuation_points WHERE asset_id = ?", assetId);
+    }
+
+    // --- RETENTION ---
+
+    /**
+     * One retention batch, in its own short transaction: walks up to "batchSize" points older than cutoffMillis in
+     * primary-key order, starting at "from", and deletes every point that isn't the last of its asset and day
+     * (in "zone") - so each old day keeps its closing value. Returns how many were deleted and where to go on.
+     */
+    public RollupBatch rollupBatch(RollupPosition from, long cutoffMillis, ZoneId zone, int batchSize) {
+        // The last point of a batch is only judged in the next one (it may have a later point the same day)
+        int limit = Math.max(2, batchSize);
+        return transactionTemplate.execute(status -> {
+            List<long[]> rows = jdbcTemplate.query("SELECT asset_id, recorded_at FROM valuation_points " +
+                            "WHERE (asset_id, recorded_at) >= (?, ?) AND recorded_at < ? " +
+                            "ORDER BY asset_id, recorded_at LIMIT ?",
+                    (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                    from.assetId(), from.epochMillis(), cutoffMillis, limit);
+
+            List<Object[]> superseded = new ArrayList<>();
+            for (int i = 0; i + 1 < rows.size(); i++) {
+                long[] point = rows.get(i);
+                long[] next = rows.get(i + 1);
+                if (point[0] == next[0] && sameDay(point[1], next[1], zone)) {
+                    superseded.add(new Object[]{point[0], point[1]});
+                }
+            }
+            if (!superseded.isEmpty()) {
+                jdbcTemplate.batchUpdate("DELETE FROM valuation_points WHERE asset_id = ? AND recorded_at = ?", superseded);
+            }
+
+            long[] last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+            RollupPosition resume = rows.size() < limit ? null : new RollupPosition(last[0], last[1]);
+            return new RollupBatch(superseded.size(), resume);
+        });
+    }
+
+    // --- READS ---
+
+    /**
+     * Visits every point with fromMillis <= timestamp < toMillis, oldest first.
+     */
+    public void scan(Long assetId, long fromMillis, long toMillis, PointVisitor visitor) {
+        jdbcTemplate.query("SELECT recorded_at, scaled_value FROM valuation_points " +
+                        "WHERE asset_id = ? AND recorded_at >= ? AND recorded_at < ? ORDER BY recorded_at",
+                (RowCallbackHandler) rs -> visitor.visit(rs.getLong(1), rs.getLong(2)),
+                assetId, fromMillis, toMillis);
+    }
+
+    /**
+     * Up to "limit" points with timestamp < beforeMillis, newest first.
+     */
+    public List<Point> latestBefore(Long assetId, long beforeMillis, int limit) {
+        return jdbcTemplate.query("SELECT recorded_at, scaled_value FROM valuation_points " +
+                        "WHERE asset_id = ? AND recorded_at < ? ORDER BY recorded_at DESC LIMIT ?",
+                (rs, row) -> new Point(rs.getLong(1), rs.getLong(2)),
+                assetId, beforeMillis, limit);
+    }
+
+    /**
+     * Forward cursor over all points of an asset, oldest first (for streaming exports).
+     * Reads a page at a time, so memory stays flat however long the series is.
+     */
+    public Cursor cursor(Long assetId) {
+        return new Cursor(assetId);
+    }
+
+    public final class Cursor {
+        private final Long assetId;
+        private List<Point> page = List.of();
+        private int index;
+        private long lastMillis = Long.MIN_VALUE;
+        private boolean exhausted;
+
+        private Cursor(Long assetId) {
+            this.assetId = assetId;
+        }
+
+        public boolean hasNext() {
+            if (index < page.size()) return true;
+            if (exhausted) return false;
+
+            // Keyset paging: everything after the last point handed out
+            page = jdbcTemplate.query("SELECT recorded_at, scaled_value FROM valuation_points " +
+                            "WHERE asset_id = ? AND recorded_at > ? ORDER BY recorded_at LIMIT ?",
+                    (rs, row) -> new Point(rs.getLong(1), rs.getLong(2)),
+                    assetId, lastMillis, CURSOR_PAGE_SIZE);
+            index = 0;
+            exhausted = page.size() < CURSOR_PAGE_SIZE;
+            return !page.isEmpty();
+        }
+
+        public long peekMillis() {
+            return page.get(index).epochMillis();
+        }
+
+        public Point next() {
+            Point point = page.get(index++);
+            lastMillis = point.epochMillis();
+            return point;
+        }
+    }
+
+    // --- INTERNALS ---
+
+    // All or nothing, so a retry never logs a point twice
+    private void insert(List<Object[]> rows) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+    }
+
+    private static boolean sameDay(long millisA, long millisB, ZoneId zone) {
+        return Instant.ofEpochMilli(millisA).atZone(zone).toLocalDate()
+                .equals(Instant.ofEpochMilli(millisB).atZone(zone).toLocalDate());
+    }
+}
@@ -0,0 +1,190 @@
+package com.assetcompass.tracker.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic on scaled longs: an amount is "raw" units of 10^-scale
+ * (e.g. R18.5000 at PRICE_SCALE is 185000).
+ *
+ * - No allocation: products and quotients go through a 128-bit intermediate held in two longs.
+ * - Same answers as BigDecimal: multiply/divide round exactly like setScale / divide with the given RoundingMode.
+ * - Overflow is never silent: a result that doesn't fit in a long throws ArithmeticException.
+ * BigDecimal only appears at the edges (fromDecimal / toDecimal), i.e. at the database and API boundary.
+ */
+public final class FixedPoint {
+
+    // Column scales: NUMERIC(20,4) prices, NUMERIC(20,10) quantities, NUMERIC(38,2) transaction values
+    public static final int PRICE_SCALE = 4;
+    public static final int QUANTITY_SCALE = 10;
+    public static final int MONEY_SCALE = 2;
+
+    // Live FX rates (AlphaVantage sends 8 decimals) and aggregated values (micro-units, up to ~9.2 trillion)
+    public static final int RATE_SCALE = 8;
+    public static final int VALUE_SCALE = 6;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    // --- BOUNDARY ---
+
+    public static long fromDecimal(BigDecimal value, int scale, RoundingMode rounding) {
+        return value.setScale(scale, rounding).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long raw, int scale) {
+        return BigDecimal.valueOf(raw, scale);
+    }
+
+    // --- ARITHMETIC ---
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Moves a raw amount to another scale, e.g. a price (scale 4) to a value (scale 6).
+     */
+    public static long rescale(long raw, int fromScale, int toScale, RoundingMode rounding) {
+        if (toScale >= fromScale) {
+            return Math.multiplyExact(raw, powerOfTen(toScale - fromScale));
+        }
+        return multiply(raw, fromScale, 1, 0, toScale, rounding);
+    }
+
+    /**
+     * a * b, rounded to resultScale. Example: 1.5 shares (scale 10) * $210.0000 (scale 4) -> $315.000000 (scale 6).
+     */
+    public static long multiply(long a, int aScale, long b, int bScale, int resultScale, RoundingMode rounding) {
+        boolean negative = (a < 0) != (b < 0);
+        long x = Math.absExact(a);
+        long y = Math.absExact(b);
+        long high = Math.unsignedMultiplyHigh(x, y);
+        long low = x * y;
+
+        int shift = aScale + bScale - resultScale;
+        if (shift < 0) {
+            // More decimals than the product has: scale it up (exact, no rounding)
+            long factor = powerOfTen(-shift);
+            if (high != 0) throw overflow();
+            return applySign(checkedMultiplyUnsigned(low, factor), negative);
+        }
+        return applySign(divideAndRound(high, low, powerOfTen(shift), negative, rounding), negative);
+    }
+
+    /**
+     * a / b, rounded to resultScale. Example: R5000.00 (scale 2) / 18.5000 (scale 4) at scale 2 -> $270.27.
+     */
+    public static long divide(long a, int aScale, long b, int bScale, int resultScale, RoundingMode rounding) {
+        if (b == 0) throw new ArithmeticException("Division by zero");
+        boolean negative = (a < 0) != (b < 0);
+        long x = Math.absExact(a);
+        long y = Math.absExact(b);
+
+        // a / b at resultScale = (a * 10^(resultScale + bScale - aScale)) / b
+        int shift = resultScale + bScale - aScale;
+        if (shift >= 0) {
+            long factor = powerOfTen(shift);
+            long high = Math.unsignedMultiplyHigh(x, factor);
+            long low = x * factor;
+            return applySign(divideAndRound(high, low, y, negative, rounding), negative);
+        }
+        // Numerator has more decimals than needed: divide by b * 10^-shift instead
+        long divisor = Math.multiplyExact(y, powerOfTen(-shift));
+        return applySign(divideAndRound(0, x, divisor, negative, rounding), negative);
+    }
+
+    // --- 128-BIT INTERNALS ---
+
+    // (high:low) / divisor, all unsigned, rounded for a result of the given sign
+    private static long divideAndRound(long high, long low, long divisor, boolean negative, RoundingMode rounding) {
+        if (Long.compareUnsigned(high, divisor) >= 0) throw overflow();
+
+        long quotient = high == 0 ? Long.divideUnsigned(low, divisor) : divideUnsigned128(high, low, divisor);
+        long remainder = low - quotient * divisor; // Exact: the true remainder is < divisor < 2^63
+        if (quotient < 0) throw overflow();
+        if (remainder == 0) return quotient;
+
+        boolean roundAway = switch (rounding) {
+            case DOWN -> false;
+            case UP -> true;
+            case FLOOR -> negative;
+            case CEILING -> !negative;
+            case HALF_UP -> Long.compareUnsigned(remainder, divisor - remainder) >= 0;
+            case HALF_DOWN -> Long.compareUnsigned(remainder, divisor - remainder) > 0;
+            case HALF_EVEN -> {
+                int half = Long.compareUnsigned(remainder, divisor - remainder);
+                yield half > 0 || (half == 0 && (quotient & 1) == 1);
+            }
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        if (!roundAway) return quotient;
+        if (quotient == Long.MAX_VALUE) throw overflow();
+        return quotient + 1;
+    }
+
+    /**
+     * Unsigned 128/64 division (Hacker's Delight "divlu"), requires high < divisor so the quotient fits 64 bits.
+     */
+    private static long divideUnsigned128(long high, long low, long divisor) {
+        final long base = 1L << 32;
+        int shift = Long.numberOfLeadingZeros(divisor);
+        long v = divisor << shift;
+        long vHigh = v >>> 32;
+        long vLow = v & 0xFFFFFFFFL;
+
+        long numerator = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+        long lowShifted = low << shift;
+        long digit1 = lowShifted >>> 32;
+        long digit0 = lowShifted & 0xFFFFFFFFL;
+
+        long q1 = Long.divideUnsigned(numerator, vHigh);
+        long rest = Long.remainderUnsigned(numerator, vHigh);
+        while (Long.compareUnsigned(q1, base) >= 0 || Long.compareUnsigned(q1 * vLow, base * rest + digit1) > 0) {
+            q1--;
+            rest += vHigh;
+            if (Long.compareUnsigned(rest, base) >= 0) break;
+        }
+
+        long middle = numerator * base + digit1 - q1 * v;
+        long q0 = Long.divideUnsigned(middle, vHigh);
+        rest = Long.remainderUnsigned(middle, vHigh);
+        while (Long.compareUnsigned(q0, base) >= 0 || Long.compareUnsigned(q0 * vLow, base * rest + digit0) > 0) {
+            q0--;
+            rest += vHigh;
+            if (Long.compareUnsigned(rest, base) >= 0) break;
+        }
+        return q1 * base + q0;
+    }
+
+    private static long checkedMultiplyUnsigned(long x, long factor) {
+        if (Math.unsignedMultiplyHigh(x, factor) != 0 || x * factor < 0) throw overflow();
+        return x * factor;
+    }
+
+    private static long applySign(long magnitude, boolean negative) {
+        return negative ? -magnitude : magnitude;
+    }
+
+    private static long powerOfTen(int exponent) {
+        if (exponent >= POWERS_OF_TEN.length) throw new ArithmeticException("Scale difference too large: " + exponent);
+        return POWERS_OF_TEN[exponent];
+    }
+
+    private static ArithmeticException overflow() {
+        return new ArithmeticException("Fixed-point overflow");
+    }
+}
@@ -0,0 +1,106 @@
+package com.assetcompass.tracker.controllers;
+
+import com.assetcompass.tracker.models.AppUser;
+import com.assetcompass.tracker.repositories.AppUserRepository;
+import com.assetcompass.tracker.repositories.AssetRepository;
+import com.assetcompass.tracker.repositories.TransactionRepository;
+import com.assetcompass.tracker.security.AuthenticatedUser;
+import com.assetcompass.tracker.services.AssetHistoryService;
+import com.assetcompass.tracker.services.AssetRefreshService;
+import com.assetcompass.tracker.services.CurrencyService;
+import com.assetcompass.tracker.services.HoldingsImportService;
+import com.assetcompass.tracker.services.PortfolioValuationService;
+import com.assetcompass.tracker.services.StockService;
+import com.assetcompass.tracker.services.ValuationSeriesStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The BUY response must carry the same numbers, at the same scale, as before the fixed-point work.
+ */
+class AssetControllerTest {
+
+    private static final AuthenticatedUser USER = new AuthenticatedUser(7L, "user@example.com", "Test User", "USER");
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        AssetRepository assetRepository = mock(AssetRepository.class);
+        when(assetRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        AppUserRepository userRepository = mock(AppUserRepository.class);
+        when(userRepository.getReferenceById(USER.id())).thenReturn(new AppUser());
+        StockService stockService = mock(StockService.class);
+        when(stockService.getStockPrice("AAPL")).thenReturn(new BigDecimal("187.5"));
+        CurrencyService currencyService = mock(CurrencyService.class);
+        when(currencyService.getUsdToZarRate()).thenReturn(new BigDecimal("18.5"));
+
+        AssetController controller = new AssetController(assetRepository, userRepository, stockService, currencyService,
+                mock(TransactionRepository.class), mock(AssetRefreshService.class), mock(PortfolioValuationService.class),
+                mock(AssetHistoryService.class), mock(ValuationSeriesStore.class), mock(HoldingsImportService.class),
+                mock(ApplicationEventPublisher.class));
+
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(USER, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void usdBuyEchoesTheAmountAsGiven() throws Exception {
+        String body = buy("100", "USD");
+        assertEquals("100", field(body, "investedUsd"));
+        assertEquals("187.5", field(body, "stockPrice"));
+        assertEquals("0.5333333333", field(body, "sharesOwned"));
+        assertEquals("18.5", field(body, "exchangeRateLocked"));
+    }
+
+    @Test
+    void zarBuyConvertsToCents() throws Exception {
+        String body = buy("1850", "ZAR");
+        assertEquals("100.00", field(body, "investedUsd"));
+        assertEquals("0.5333333333", field(body, "sharesOwned"));
+    }
+
+    private String buy(String amount, String currency) throws Exception {
+        String request = "{\"ticker\":\"AAPL\",\"name\":\"Apple Inc\",\"assetType\":\"STOCK\",\"amount\":" + amount +
+                ",\"currency\":\"" + currency + "\"}";
+        return mockMvc.perform(post("/api/assets/buy").contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    // The number as written on the wire (a parsed tree would normalize 100.00 to 1E+2)
+    private static String field(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":([^,}]+)").matcher(json);
+        assertTrue(matcher.find(), name + " missing from " + json);
+        return matcher.group(1);
+    }
+}
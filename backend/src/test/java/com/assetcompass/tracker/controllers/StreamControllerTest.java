@@ -0,0 +1,116 @@
+package com.assetcompass.tracker.controllers;
+
+import com.assetcompass.tracker.repositories.AssetRepository;
+import com.assetcompass.tracker.security.AuthenticatedUser;
+import com.assetcompass.tracker.services.CurrencyService;
+import com.assetcompass.tracker.services.PortfolioValuationService;
+import com.assetcompass.tracker.services.PriceStreamService;
+import com.assetcompass.tracker.services.PriceUpdatedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The price stream must really be served as SSE, and only count as a connection once Spring has it.
+ */
+class StreamControllerTest {
+
+    private static final AuthenticatedUser USER = new AuthenticatedUser(7L, "user@example.com", "Test User", "USER");
+
+    private PriceStreamService priceStreamService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        PortfolioValuationService valuationService = mock(PortfolioValuationService.class);
+        when(valuationService.getNetWorthZar(anyLong(), any())).thenReturn(new BigDecimal("1000.00"));
+        CurrencyService currencyService = mock(CurrencyService.class);
+        when(currencyService.getUsdToZarRate()).thenReturn(new BigDecimal("18.50"));
+
+        priceStreamService = new PriceStreamService(new ObjectMapper(), valuationService, currencyService);
+        ReflectionTestUtils.setField(priceStreamService, "clientBuffer", 64);
+        ReflectionTestUtils.setField(priceStreamService, "heartbeatSeconds", 20L);
+
+        AssetRepository assetRepository = mock(AssetRepository.class);
+        when(assetRepository.findDistinctTickersByUserId(USER.id())).thenReturn(List.of("AAPL", "MSFT"));
+
+        StreamController controller = new StreamController(priceStreamService, assetRepository);
+        ReflectionTestUtils.setField(controller, "maxTickers", 2);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(USER, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        ReflectionTestUtils.invokeMethod(priceStreamService, "shutdown");
+    }
+
+    @Test
+    void streamsPricesUntilTheServerCompletes() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/stream/prices"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(1, priceStreamService.getStats().get("connections"));
+        awaitBody(result, "event:subscribed");
+        awaitBody(result, "event:networth");
+
+        priceStreamService.onPriceUpdated(new PriceUpdatedEvent("AAPL", new BigDecimal("190.25")));
+        awaitBody(result, "\"price\":190.25");
+
+        ReflectionTestUtils.invokeMethod(priceStreamService, "shutdown");
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        assertEquals(0, priceStreamService.getStats().get("connections"));
+    }
+
+    @Test
+    void tooManyTickersIsRejectedWithoutSubscribing() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/stream/prices").param("tickers", "AAPL,MSFT,TSLA"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("event:error"), body);
+        assertTrue(body.contains("Too many tickers (max 2)"), body);
+        assertEquals(0, priceStreamService.getStats().get("connections"));
+    }
+
+    // Frames are written by the subscriber's own thread
+    private static void awaitBody(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!result.getResponse().getContentAsString().contains(expected)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("No \"" + expected + "\" in: " + result.getResponse().getContentAsString());
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.services.AlphaVantageGateway.BudgetExceededException;
+import com.assetcompass.tracker.services.AlphaVantageGateway.Call;
+import com.assetcompass.tracker.services.AlphaVantageGateway.NotSentException;
+import com.assetcompass.tracker.services.MarketDataProvider.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Priority order, coalescing, quota, queue expiry and the per-caller budget - against a mocked HTTP client.
+ */
+class AlphaVantageGatewayTest {
+
+    private final MarketDataHttpClient httpClient = mock(MarketDataHttpClient.class);
+
+    // Queries in the order they went out
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    private AlphaVantageGateway gateway;
+
+    @AfterEach
+    void stop() {
+        if (gateway != null) {
+            gateway.stop();
+        }
+    }
+
+    @Test
+    void interactiveIsSentBeforeBackground() {
+        CountDownLatch release = new CountDownLatch(1);
+        start(60, 0, 5_000, query -> {
+            // Hold the dispatcher on the first query so the rest queue up behind it
+            if (query.equals("first")) await(release);
+            return CompletableFuture.completedFuture(body(query));
+        });
+
+        Call<String> first = gateway.submit(Priority.BACKGROUND, "first", String.class);
+        awaitSent(1);
+        Call<String> background = gateway.submit(Priority.BACKGROUND, "background", String.class);
+        Call<String> interactive = gateway.submit(Priority.INTERACTIVE, "interactive", String.class);
+        release.countDown();
+
+        assertEquals("first", first.await(5_000));
+        assertEquals("interactive", interactive.await(5_000));
+        assertEquals("background", background.await(5_000));
+        assertEquals(List.of("first", "interactive", "background"), sent);
+    }
+
+    @Test
+    void identicalQueriesShareOneCallAndTakeTheHigherPriority() {
+        CountDownLatch release = new CountDownLatch(1);
+        start(60, 0, 5_000, query -> {
+            if (query.equals("first")) await(release);
+            return CompletableFuture.completedFuture(body(query));
+        });
+
+        gateway.submit(Priority.BACKGROUND, "first", String.class);
+        awaitSent(1);
+        Call<String> other = gateway.submit(Priority.BACKGROUND, "other", String.class);
+        Call<String> quote = gateway.submit(Priority.BACKGROUND, "quote", String.class);
+        // Joins the pending query and bumps it ahead of "other"
+        Call<String> joined = gateway.submit(Priority.INTERACTIVE, "quote", String.class);
+        release.countDown();
+
+        assertEquals("quote", quote.await(5_000));
+        assertEquals("quote", joined.await(5_000));
+        assertEquals("other", other.await(5_000));
+        assertEquals(List.of("first", "quote", "other"), sent);
+        verify(httpClient, times(1)).getAsync("quote");
+        assertEquals(1L, gateway.getStats().get("coalesced"));
+    }
+
+    @Test
+    void dailyQuotaRefusesWithoutSending() {
+        start(60, 1, 5_000, query -> CompletableFuture.completedFuture(body(query)));
+
+        assertEquals("a", gateway.fetch(Priority.INTERACTIVE, "a", String.class));
+        assertThrows(NotSentException.class, () -> gateway.fetch(Priority.INTERACTIVE, "b", String.class));
+        assertEquals(List.of("a"), sent);
+        assertEquals(1, gateway.getStats().get("usedToday"));
+    }
+
+    @Test
+    void expiresWhenNotSentWithinMaxWait() {
+        CountDownLatch release = new CountDownLatch(1);
+        start(60, 0, 100, query -> {
+            if (query.equals("first")) await(release);
+            return CompletableFuture.completedFuture(body(query));
+        });
+
+        gateway.submit(Priority.INTERACTIVE, "first", String.class);
+        awaitSent(1);
+        Call<String> late = gateway.submit(Priority.INTERACTIVE, "late", String.class);
+
+        assertThrows(NotSentException.class, () -> late.await(5_000));
+        release.countDown();
+        assertThrows(Exception.class, () -> late.response().get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("first"), sent);
+        assertEquals(1L, gateway.getStats().get("expired"));
+    }
+
+    @Test
+    void callerCanWaitLessThanTheMaxWait() {
+        CountDownLatch release = new CountDownLatch(1);
+        start(60, 0, 5_000, query -> {
+            if (query.equals("first")) await(release);
+            return CompletableFuture.completedFuture(body(query));
+        });
+
+        gateway.submit(Priority.INTERACTIVE, "first", String.class);
+        awaitSent(1);
+        Call<String> search = gateway.submit(Priority.BACKGROUND, "search", String.class, 100);
+
+        long started = System.currentTimeMillis();
+        assertThrows(NotSentException.class, () -> search.await(5_000));
+        assertTrue(System.currentTimeMillis() - started < 2_000, "waited for the gateway's max wait");
+        release.countDown();
+    }
+
+    @Test
+    void budgetOnlyCoversTheRoundTrip() throws Exception {
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        start(60, 0, 5_000, query -> response);
+
+        Call<String> call = gateway.submit(Priority.INTERACTIVE, "slow", String.class);
+        assertThrows(BudgetExceededException.class, () -> call.await(50));
+
+        // The request carries on, and its real outcome still arrives
+        response.complete(body("slow"));
+        assertEquals("slow", call.response().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void upstreamFailureIsNotNotSent() {
+        start(60, 0, 5_000, query -> CompletableFuture.failedFuture(new IllegalStateException("HTTP 503")));
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> gateway.fetch(Priority.INTERACTIVE, "q", String.class));
+        assertTrue(!(error instanceof NotSentException) && !(error instanceof BudgetExceededException), error.toString());
+        assertTrue(error.getMessage().contains("HTTP 503"), error.getMessage());
+    }
+
+    private void start(int perMinute, int perDay, long maxWaitMillis,
+                       Function<String, CompletableFuture<byte[]>> upstream) {
+        when(httpClient.getAsync(anyString())).thenAnswer(invocation -> {
+            String query = invocation.getArgument(0);
+            sent.add(query);
+            return upstream.apply(query);
+        });
+        when(httpClient.decode(any(), eq(String.class)))
+                .thenAnswer(invocation -> new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8));
+
+        gateway = new AlphaVantageGateway(httpClient, new SimpleMeterRegistry(), perMinute, perDay, maxWaitMillis);
+        gateway.start();
+    }
+
+    private void awaitSent(int count) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (sent.size() < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for " + count + " sent");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static byte[] body(String query) {
+        return query.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
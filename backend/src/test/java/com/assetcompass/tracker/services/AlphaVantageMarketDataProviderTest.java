@@ -0,0 +1,161 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.services.AlphaVantageMarketDataProvider.Upstream;
+import com.assetcompass.tracker.services.MarketDataProvider.Priority;
+import com.assetcompass.tracker.services.SymbolIndex.SymbolMatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Query values reach AlphaVantage encoded, a request that can't even be built never counts against a circuit,
+ * and callers sharing one round trip get one verdict between them.
+ */
+class AlphaVantageMarketDataProviderTest {
+
+    private static final int FAILURE_THRESHOLD = 2;
+
+    // Raw query strings as the upstream received them
+    private final List<String> received = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private MarketDataHttpClient httpClient;
+    private AlphaVantageGateway gateway;
+
+    @AfterEach
+    void stop() {
+        if (gateway != null) gateway.stop();
+        if (httpClient != null) httpClient.close();
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    void searchTextIsEncoded() throws IOException {
+        AlphaVantageMarketDataProvider provider = startAgainstLocalServer();
+
+        String keywords = "apple inc & co=1&apikey=stolen";
+        List<SymbolMatch> matches = provider.searchSymbols(keywords, Priority.INTERACTIVE);
+        assertEquals(List.of("AAPL"), matches.stream().map(SymbolMatch::symbol).toList());
+
+        // One parameter each, with the text intact - nothing injected
+        List<String[]> params = params(received.get(0));
+        assertEquals(List.of("function", "keywords", "apikey"), params.stream().map(p -> p[0]).toList());
+        assertEquals("SYMBOL_SEARCH", params.get(0)[1]);
+        assertEquals(keywords, params.get(1)[1]);
+        assertEquals("test-key", params.get(2)[1]);
+
+        provider.getQuote("BRK B", Priority.INTERACTIVE);
+        assertEquals("BRK B", params(received.get(1)).get(1)[1]);
+        assertEquals(CircuitBreaker.State.CLOSED, provider.getCircuitState(Upstream.SYMBOL_SEARCH));
+    }
+
+    @Test
+    void requestBuildErrorsDoNotOpenTheCircuit() {
+        MarketDataHttpClient failing = mock(MarketDataHttpClient.class);
+        when(failing.getAsync(anyString())).thenThrow(new IllegalArgumentException("Illegal character in query"));
+        AlphaVantageMarketDataProvider provider = start(failing, 1);
+
+        for (int i = 0; i < FAILURE_THRESHOLD * 3; i++) {
+            assertThrows(AlphaVantageGateway.NotSentException.class,
+                    () -> provider.searchSymbols("anything", Priority.INTERACTIVE));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, provider.getCircuitState(Upstream.SYMBOL_SEARCH));
+        // Nothing went out, so nothing was charged to the daily quota
+        assertEquals(0, gateway.getStats().get("usedToday"));
+    }
+
+    @Test
+    void sharedRoundTripCountsOneFailure() throws Exception {
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        MarketDataHttpClient client = mock(MarketDataHttpClient.class);
+        when(client.getAsync(anyString())).thenReturn(response);
+        AlphaVantageMarketDataProvider provider = start(client, 0);
+
+        int callers = FAILURE_THRESHOLD + 1;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                calls.add(pool.submit(() -> provider.getQuote("AAPL", Priority.INTERACTIVE)));
+            }
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (((Number) gateway.getStats().get("coalesced")).intValue() < callers - 1) {
+                assertTrue(System.currentTimeMillis() < deadline, "callers never joined one request");
+                Thread.sleep(5);
+            }
+
+            response.completeExceptionally(new IllegalStateException("HTTP 503"));
+            for (Future<?> call : calls) {
+                assertThrows(Exception.class, () -> call.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Map<?, ?> circuits = (Map<?, ?>) provider.getStats().get("circuits");
+        assertEquals(1L, ((Map<?, ?>) circuits.get(Upstream.GLOBAL_QUOTE.name())).get("failures"));
+        assertEquals(CircuitBreaker.State.CLOSED, provider.getCircuitState(Upstream.GLOBAL_QUOTE));
+    }
+
+    private AlphaVantageMarketDataProvider startAgainstLocalServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/query", exchange -> {
+            String query = exchange.getRequestURI().getRawQuery();
+            received.add(query);
+            String body = query.startsWith("function=SYMBOL_SEARCH")
+                    ? "{\"bestMatches\":[{\"1. symbol\":\"AAPL\",\"2. name\":\"Apple Inc\",\"3. type\":\"Equity\"}]}"
+                    : "{\"Global Quote\":{\"05. price\":\"1.0000\"}}";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+
+        httpClient = new MarketDataHttpClient(new ObjectMapper(),
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/query", "test-key", 1000, 2000, 5);
+        return start(httpClient, 0);
+    }
+
+    private AlphaVantageMarketDataProvider start(MarketDataHttpClient client, int perDay) {
+        gateway = new AlphaVantageGateway(client, new SimpleMeterRegistry(), 600, perDay, 2000);
+        gateway.start();
+        return new AlphaVantageMarketDataProvider(gateway, new SimpleMeterRegistry(),
+                FAILURE_THRESHOLD, 30, 1, 2000, 2000, 2000, 500);
+    }
+
+    private static List<String[]> params(String rawQuery) {
+        List<String[]> params = new ArrayList<>();
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            params.add(new String[]{URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8)});
+        }
+        return params;
+    }
+}
@@ -0,0 +1,102 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.services.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CLOSED -> OPEN after the threshold, OPEN -> HALF_OPEN after the open period, and a limited number of probes.
+ */
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 50;
+
+    @Test
+    void opensAfterThresholdConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, OPEN_MILLIS, 1);
+
+        fail(breaker, 2);
+        assertEquals(State.CLOSED, breaker.getState());
+
+        // A success in between resets the run
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        fail(breaker, 2);
+        assertEquals(State.CLOSED, breaker.getState());
+
+        fail(breaker, 1);
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1L, breaker.getStats().get("rejected"));
+        assertEquals(1L, breaker.getStats().get("timesOpened"));
+    }
+
+    @Test
+    void halfOpenLetsOnlyTheProbeLimitThrough() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, OPEN_MILLIS, 2);
+        fail(breaker, 1);
+
+        Thread.sleep(OPEN_MILLIS + 10);
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        // One success closes it for everyone
+        breaker.onSuccess();
+        assertEquals(State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, OPEN_MILLIS, 1);
+        fail(breaker, 1);
+
+        Thread.sleep(OPEN_MILLIS + 10);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2L, breaker.getStats().get("timesOpened"));
+
+        // A full open period again before the next probe
+        Thread.sleep(OPEN_MILLIS + 10);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void releaseIsNoVerdict() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, OPEN_MILLIS, 1);
+
+        // Calls that never reached the upstream neither count as failures...
+        for (int i = 0; i < 5; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.release();
+        }
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0L, breaker.getStats().get("failures"));
+
+        // ...nor use up the half-open probe
+        fail(breaker, 2);
+        Thread.sleep(OPEN_MILLIS + 10);
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.release();
+        assertTrue(breaker.tryAcquire());
+        assertEquals(State.HALF_OPEN, breaker.getState());
+    }
+
+    private static void fail(CircuitBreaker breaker, int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+    }
+}
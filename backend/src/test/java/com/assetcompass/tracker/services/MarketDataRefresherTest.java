@@ -0,0 +1,105 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.models.MarketPrice;
+import com.assetcompass.tracker.repositories.AssetRepository;
+import com.assetcompass.tracker.repositories.AssetRepository.TickerHoldings;
+import com.assetcompass.tracker.repositories.MarketPriceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * When the quota covers only part of the tickers, they take turns: every ticker is tried within ceil(n / budget) cycles.
+ */
+class MarketDataRefresherTest {
+
+    // 5/minute and 25/day at a 0.5 share over a 6h cycle: 3 tickers per cycle
+    private static final int BUDGET = 3;
+    private static final int TICKERS = 10;
+
+    private final AssetRepository assetRepository = mock(AssetRepository.class);
+    private final MarketPriceRepository marketPriceRepository = mock(MarketPriceRepository.class);
+    private final StockService stockService = mock(StockService.class);
+    private final MarketDataProvider marketData = mock(MarketDataProvider.class);
+
+    private final Map<String, MarketPrice> marketPrices = new ConcurrentHashMap<>();
+    private final List<Set<String>> triedPerCycle = new ArrayList<>();
+
+    private MarketDataRefresher refresher;
+
+    private record Holdings(String getTicker, long getHoldings) implements TickerHoldings {}
+
+    @BeforeEach
+    void setUp() {
+        List<TickerHoldings> tickers = new ArrayList<>();
+        for (int i = 0; i < TICKERS; i++) {
+            tickers.add(new Holdings("T" + i, TICKERS - i)); // Most-held first, like the query
+        }
+        when(assetRepository.countHoldingsByTicker()).thenReturn(tickers);
+        when(marketData.getRequestsPerMinute()).thenReturn(5);
+        when(marketData.getRequestsPerDay()).thenReturn(25);
+
+        when(marketPriceRepository.save(any())).thenAnswer(invocation -> {
+            MarketPrice price = invocation.getArgument(0);
+            marketPrices.put(price.getTicker(), price);
+            return price;
+        });
+        when(marketPriceRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<MarketPrice> found = new ArrayList<>();
+            for (String ticker : invocation.<Iterable<String>>getArgument(0)) {
+                if (marketPrices.containsKey(ticker)) found.add(marketPrices.get(ticker));
+            }
+            return found;
+        });
+
+        // The least-held ticker never gets a price - it must not hog the front of the line
+        when(stockService.getLivePriceInBackground(anyString())).thenAnswer(invocation -> {
+            String ticker = invocation.getArgument(0);
+            triedPerCycle.get(triedPerCycle.size() - 1).add(ticker);
+            return ticker.equals("T" + (TICKERS - 1)) ? null : BigDecimal.TEN;
+        });
+
+        refresher = new MarketDataRefresher(assetRepository, marketPriceRepository, stockService, marketData,
+                mock(PortfolioValuationService.class), mock(TaskScheduler.class),
+                mock(PlatformTransactionManager.class), mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(refresher, "quotaShare", 0.5);
+        ReflectionTestUtils.setField(refresher, "minIntervalSeconds", 300L);
+        ReflectionTestUtils.setField(refresher, "maxIntervalSeconds", 21600L);
+    }
+
+    @Test
+    void everyTickerIsTriedWithinCeilNOverBudgetCycles() throws InterruptedException {
+        int window = (TICKERS + BUDGET - 1) / BUDGET;
+        for (int cycle = 0; cycle < window * 3; cycle++) {
+            triedPerCycle.add(new HashSet<>());
+            refresher.refreshOnce();
+            assertEquals(BUDGET, triedPerCycle.get(cycle).size(), "cycle " + cycle);
+            Thread.sleep(2); // Distinct timestamps per cycle
+        }
+
+        // Any "window" consecutive cycles cover every ticker
+        for (int start = 0; start + window <= triedPerCycle.size(); start++) {
+            Set<String> tried = new HashSet<>();
+            triedPerCycle.subList(start, start + window).forEach(tried::addAll);
+            assertEquals(TICKERS, tried.size(), "cycles " + start + ".." + (start + window - 1) + ": " + tried);
+        }
+        assertEquals(TICKERS - 1, marketPrices.size());
+    }
+}
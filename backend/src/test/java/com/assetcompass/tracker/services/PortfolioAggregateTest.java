@@ -0,0 +1,217 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.models.Asset;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The FixedPoint aggregate against the BigDecimal one it replaced: per-currency values are the old exact
+ * values rounded HALF_UP to 6 decimals per position, and ZAR totals stay within that rounding of the old ones -
+ * including positions too big for a long.
+ */
+class PortfolioAggregateTest {
+
+    private static final String[] TICKERS = {"AAPL", "MSFT", "BTC", "NPN.JO", "SPY"};
+    private static final String[] TYPES = {"STOCK", "CRYPTO", "ETF"};
+    private static final String[] CURRENCIES = {"USD", "ZAR"};
+
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    @Test
+    void matchesBigDecimalAggregate() {
+        PortfolioAggregate aggregate = new PortfolioAggregate();
+        OldAggregate old = new OldAggregate();
+        List<Long> ids = new ArrayList<>();
+
+        for (int step = 0; step < 5_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 4 || ids.isEmpty()) {
+                long id = step;
+                Asset asset = asset(id, TICKERS[random.nextInt(TICKERS.length)],
+                        decimal(1_000_000_000_000_000L, 10), decimal(10_000_000_000L, 4));
+                BigDecimal costBasis = decimal(100_000_000_000L, 2);
+                aggregate.add(asset, costBasis);
+                old.add(asset, costBasis);
+                ids.add(id);
+            } else if (action < 7) {
+                Long id = ids.get(random.nextInt(ids.size()));
+                BigDecimal price = decimal(10_000_000_000L, 6);
+                aggregate.updatePrice(id, price);
+                old.updatePrice(id, price);
+            } else if (action < 9) {
+                String ticker = TICKERS[random.nextInt(TICKERS.length)];
+                BigDecimal price = decimal(10_000_000_000L, 4);
+                aggregate.updateTickerPrice(ticker, price);
+                old.updateTickerPrice(ticker, price);
+            } else {
+                Long id = ids.remove(random.nextInt(ids.size()));
+                aggregate.remove(id);
+                old.remove(id);
+            }
+
+            if (step % 50 == 0) {
+                assertMatches(aggregate, old, new BigDecimal("18.12345678"));
+            }
+        }
+        assertMatches(aggregate, old, new BigDecimal("16.5"));
+    }
+
+    @Test
+    void positionsTooBigForALongFallBackToBigDecimal() {
+        PortfolioAggregate aggregate = new PortfolioAggregate();
+        OldAggregate old = new OldAggregate();
+
+        // 5e9 units (quantity doesn't fit at 10 decimals) and 9e8 units at 100k (value doesn't fit at 6 decimals)
+        Asset hugeQuantity = asset(1L, "SHIB", new BigDecimal("5000000000.1234567891"), new BigDecimal("0.0001"));
+        Asset hugeValue = asset(2L, "BTC", new BigDecimal("900000000"), new BigDecimal("100000.0000"));
+        Asset normal = asset(3L, "AAPL", new BigDecimal("12.5"), new BigDecimal("190.1234"));
+        for (Asset asset : List.of(hugeQuantity, hugeValue, normal)) {
+            aggregate.add(asset, BigDecimal.TEN);
+            old.add(asset, BigDecimal.TEN);
+        }
+        assertMatches(aggregate, old, new BigDecimal("18.5"));
+
+        // Back under the limit, then over it again
+        aggregate.updatePrice(2L, new BigDecimal("1.0000"));
+        old.updatePrice(2L, new BigDecimal("1.0000"));
+        assertMatches(aggregate, old, new BigDecimal("18.5"));
+        aggregate.updateTickerPrice("BTC", new BigDecimal("250000.0000"));
+        old.updateTickerPrice("BTC", new BigDecimal("250000.0000"));
+        assertMatches(aggregate, old, new BigDecimal("18.5"));
+
+        // Removing everything leaves nothing behind, overflow included
+        for (long id = 1; id <= 3; id++) {
+            aggregate.remove(id);
+            old.remove(id);
+        }
+        assertEquals(0, aggregate.netWorthZar(new BigDecimal("18.5")).signum());
+        assertEquals(0, aggregate.costBasisZar(new BigDecimal("18.5")).signum());
+    }
+
+    private static void assertMatches(PortfolioAggregate aggregate, OldAggregate old, BigDecimal usdRate) {
+        // Per currency: exactly the old values, each position rounded HALF_UP to 6 decimals
+        Map<String, BigDecimal> values = aggregate.valueByCurrency();
+        for (String currency : CURRENCIES) {
+            BigDecimal expected = old.roundedValue(currency);
+            BigDecimal actual = values.getOrDefault(currency, BigDecimal.ZERO);
+            assertEquals(0, expected.compareTo(actual), currency + ": " + expected + " vs " + actual);
+        }
+
+        // In ZAR: within the per-position rounding (scaled up by the rate for USD) of the old exact totals
+        BigDecimal tolerance = new BigDecimal("0.0000005")
+                .multiply(BigDecimal.valueOf(old.positions.size() + 1))
+                .multiply(usdRate.add(BigDecimal.ONE));
+        assertClose(old.netWorthZar(usdRate), aggregate.netWorthZar(usdRate), tolerance, "net worth");
+        assertClose(old.costBasisZar(usdRate), aggregate.costBasisZar(usdRate), tolerance, "cost basis");
+
+        Map<String, BigDecimal> allocation = aggregate.allocationZar(usdRate);
+        old.allocationZar(usdRate).forEach((type, expected) ->
+                assertClose(expected, allocation.getOrDefault(type, BigDecimal.ZERO), tolerance, type));
+    }
+
+    private static void assertClose(BigDecimal expected, BigDecimal actual, BigDecimal tolerance, String what) {
+        assertTrue(expected.subtract(actual).abs().compareTo(tolerance) <= 0,
+                what + ": " + expected + " vs " + actual + " (tolerance " + tolerance + ")");
+    }
+
+    private Asset asset(long id, String ticker, BigDecimal quantity, BigDecimal price) {
+        return Asset.builder()
+                .id(id)
+                .ticker(ticker)
+                .assetType(TYPES[random.nextInt(TYPES.length)])
+                .currency(CURRENCIES[random.nextInt(CURRENCIES.length)])
+                .quantity(quantity)
+                .buyPrice(price)
+                .build();
+    }
+
+    private BigDecimal decimal(long maxRaw, int scale) {
+        return BigDecimal.valueOf(1 + random.nextLong(maxRaw), scale);
+    }
+
+    /**
+     * The BigDecimal aggregate as it was before FixedPoint (exact products, no rounding).
+     */
+    private static final class OldAggregate {
+
+        private record Position(String ticker, String assetType, String currency,
+                                BigDecimal quantity, BigDecimal price, BigDecimal costBasis) {
+            BigDecimal value() {
+                return quantity.multiply(price);
+            }
+        }
+
+        final Map<Long, Position> positions = new HashMap<>();
+
+        void add(Asset asset, BigDecimal costBasis) {
+            positions.put(asset.getId(), new Position(asset.getTicker().toUpperCase(), asset.getAssetType(),
+                    asset.getCurrency(), asset.getQuantity().setScale(10, RoundingMode.HALF_UP),
+                    asset.getBuyPrice().setScale(4, RoundingMode.HALF_UP), costBasis));
+        }
+
+        void updatePrice(Long id, BigDecimal price) {
+            Position old = positions.get(id);
+            if (old == null) return;
+            positions.put(id, new Position(old.ticker(), old.assetType(), old.currency(), old.quantity(),
+                    price.setScale(4, RoundingMode.HALF_UP), old.costBasis()));
+        }
+
+        void updateTickerPrice(String ticker, BigDecimal price) {
+            for (Map.Entry<Long, Position> entry : Map.copyOf(positions).entrySet()) {
+                if (entry.getValue().ticker().equals(ticker)) {
+                    updatePrice(entry.getKey(), price);
+                }
+            }
+        }
+
+        void remove(Long id) {
+            positions.remove(id);
+        }
+
+        BigDecimal roundedValue(String currency) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (Position position : positions.values()) {
+                if (position.currency().equals(currency)) {
+                    total = total.add(position.value().setScale(6, RoundingMode.HALF_UP));
+                }
+            }
+            return total;
+        }
+
+        BigDecimal netWorthZar(BigDecimal usdRate) {
+            return sumZar(usdRate, null, false);
+        }
+
+        BigDecimal costBasisZar(BigDecimal usdRate) {
+            return sumZar(usdRate, null, true);
+        }
+
+        Map<String, BigDecimal> allocationZar(BigDecimal usdRate) {
+            Map<String, BigDecimal> allocation = new HashMap<>();
+            for (Position position : positions.values()) {
+                allocation.computeIfAbsent(position.assetType(), type -> sumZar(usdRate, type, false));
+            }
+            return allocation;
+        }
+
+        private BigDecimal sumZar(BigDecimal usdRate, String assetType, boolean costBasis) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (Position position : positions.values()) {
+                if (assetType != null && !assetType.equals(position.assetType())) continue;
+                BigDecimal amount = costBasis ? position.costBasis() : position.value();
+                total = total.add("USD".equals(position.currency()) ? amount.multiply(usdRate) : amount);
+            }
+            return total;
+        }
+    }
+}
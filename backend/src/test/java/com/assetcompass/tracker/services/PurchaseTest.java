@@ -0,0 +1,80 @@
+package com.assetcompass.tracker.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Purchase must give exactly what the old buyAsset code gave - same values at the same scale (value as stored: 2 decimals).
+ */
+class PurchaseTest {
+
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Test
+    void matchesBigDecimalBuy() {
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextLong(10_000_000_000L), 2);   // up to 100M
+            BigDecimal price = BigDecimal.valueOf(1 + random.nextLong(1_000_000_000L), 4);     // up to 100k
+            BigDecimal rate = BigDecimal.valueOf(100_000_000L + random.nextLong(2_500_000_000L), 8);
+            String currency = random.nextBoolean() ? "USD" : "ZAR";
+
+            // The old buyAsset
+            BigDecimal investedUsd = "ZAR".equals(currency) ? amount.divide(rate, 2, RoundingMode.HALF_DOWN) : amount;
+            BigDecimal shares = investedUsd.divide(price, 10, RoundingMode.HALF_DOWN);
+            BigDecimal value = price.multiply(shares).setScale(2, RoundingMode.HALF_UP);
+
+            String input = amount + " " + currency + " @ " + price + " (rate " + rate + ")";
+            if (shares.compareTo(Purchase.MAX_SHARES) >= 0) {
+                // More than assets.quantity can hold - refused instead of failing on save
+                assertThrows(ArithmeticException.class, () -> Purchase.of(amount, currency, price, rate), input);
+                continue;
+            }
+
+            Purchase purchase = Purchase.of(amount, currency, price, rate);
+            assertEquals(price, purchase.priceUsd(), input);
+            assertEquals(investedUsd, purchase.investedUsd(), input);
+            assertEquals(shares, purchase.shares(), input);
+            assertEquals(value, purchase.valueUsd(), input);
+        }
+    }
+
+    @Test
+    void lotValueMatchesBigDecimal() {
+        for (int i = 0; i < 100_000; i++) {
+            // Up to the column's 10 integer digits
+            BigDecimal quantity = BigDecimal.valueOf(1 + random.nextLong(99_999_999_999_999_999L), 10)
+                    .multiply(BigDecimal.valueOf(1 + random.nextInt(1000)));
+            if (quantity.compareTo(Purchase.MAX_SHARES) >= 0) continue;
+            BigDecimal price = BigDecimal.valueOf(1 + random.nextLong(1_000_000_000L), 4);
+
+            BigDecimal expected = price.multiply(quantity).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(expected, Purchase.value(quantity, price), quantity + " @ " + price);
+        }
+    }
+
+    @Test
+    void keepsTheScaleItWasGiven() {
+        // BigDecimal.equals: value and scale
+        Purchase usd = Purchase.of(new BigDecimal("100"), "USD", new BigDecimal("187.5"), new BigDecimal("18.5"));
+        assertEquals(new BigDecimal("100"), usd.investedUsd());
+        assertEquals(new BigDecimal("187.5"), usd.priceUsd());
+        assertEquals(new BigDecimal("0.5333333333"), usd.shares());
+        assertEquals(new BigDecimal("100.00"), usd.valueUsd());
+
+        Purchase zar = Purchase.of(new BigDecimal("1850"), "ZAR", new BigDecimal("250"), new BigDecimal("18.5"));
+        assertEquals(new BigDecimal("100.00"), zar.investedUsd());
+        assertEquals(new BigDecimal("0.4000000000"), zar.shares());
+    }
+
+    @Test
+    void outOfRangeAmountThrows() {
+        assertThrows(ArithmeticException.class, () ->
+                Purchase.of(new BigDecimal("1e20"), "USD", new BigDecimal("1.0000"), BigDecimal.ONE));
+    }
+}
@@ -0,0 +1,209 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.services.MarketDataProvider.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TTL, LRU eviction, single-flight loads and INTERACTIVE callers taking over a BACKGROUND load.
+ */
+class QuoteCacheTest {
+
+    private static final BigDecimal PRICE = new BigDecimal("190.1234");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // Loaders block on purpose - give every caller its own thread
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void freshWithinTtlStaleAfter() throws InterruptedException {
+        QuoteCache cache = new QuoteCache(registry, 60, 10);
+        cache.put("aapl", PRICE);
+        assertEquals(PRICE, cache.getIfFresh("AAPL"));
+
+        QuoteCache expiring = new QuoteCache(new SimpleMeterRegistry(), 0, 10);
+        expiring.put("AAPL", PRICE);
+        Thread.sleep(2);
+        assertNull(expiring.getIfFresh("AAPL"));
+        // The last price is still there for when the upstream is down
+        assertEquals(PRICE, expiring.getStale("aapl"));
+
+        // An expired entry is loaded again
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(BigDecimal.ONE, expiring.get("AAPL", Priority.INTERACTIVE, ticker -> {
+            loads.incrementAndGet();
+            return BigDecimal.ONE;
+        }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        QuoteCache cache = new QuoteCache(registry, 60, 2);
+        cache.put("AAPL", PRICE);
+        cache.put("MSFT", PRICE);
+        cache.getIfFresh("AAPL"); // MSFT is now the eldest
+        cache.put("BTC", PRICE);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.getStale("MSFT"));
+        assertEquals(PRICE, cache.getStale("AAPL"));
+        assertEquals(PRICE, cache.getStale("BTC"));
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        QuoteCache cache = new QuoteCache(registry, 60, 10);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        List<CompletableFuture<BigDecimal>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> cache.get("aapl", Priority.INTERACTIVE, ticker -> {
+                loads.incrementAndGet();
+                await(release);
+                return PRICE;
+            }), executor));
+        }
+        // Hold the load until everyone else is waiting on it
+        awaitCount("joined", callers - 1);
+        release.countDown();
+
+        for (CompletableFuture<BigDecimal> result : results) {
+            assertEquals(PRICE, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1.0, count("miss"));
+
+        // And the next call is a hit
+        assertEquals(PRICE, cache.get("AAPL", Priority.INTERACTIVE, ticker -> {
+            throw new AssertionError("should be cached");
+        }));
+        assertEquals(1.0, count("hit"));
+    }
+
+    @Test
+    void nullIsNotCachedAndErrorsReachJoinedCallers() throws Exception {
+        QuoteCache cache = new QuoteCache(registry, 60, 10);
+
+        assertNull(cache.get("AAPL", Priority.INTERACTIVE, ticker -> null));
+        assertEquals(PRICE, cache.get("AAPL", Priority.INTERACTIVE, ticker -> PRICE));
+
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<BigDecimal> loader = CompletableFuture.supplyAsync(() ->
+                cache.get("MSFT", Priority.INTERACTIVE, ticker -> {
+                    await(release);
+                    throw new IllegalStateException("upstream down");
+                }), executor);
+        awaitInFlight(cache, "MSFT");
+        CompletableFuture<BigDecimal> joiner = CompletableFuture.supplyAsync(() ->
+                cache.get("MSFT", Priority.INTERACTIVE, ticker -> PRICE), executor);
+        awaitCount("joined", 1);
+        release.countDown();
+
+        assertThrows(Exception.class, () -> loader.get(5, TimeUnit.SECONDS));
+        assertThrows(Exception.class, () -> joiner.get(5, TimeUnit.SECONDS));
+        assertNull(cache.getStale("MSFT"));
+    }
+
+    @Test
+    void interactiveTakesOverBackgroundLoad() throws Exception {
+        QuoteCache cache = new QuoteCache(registry, 60, 10);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<BigDecimal> background = CompletableFuture.supplyAsync(() ->
+                cache.get("AAPL", Priority.BACKGROUND, ticker -> {
+                    await(release);
+                    return BigDecimal.ONE;
+                }), executor);
+        awaitInFlight(cache, "AAPL");
+
+        // Doesn't wait behind the background load: runs its own, while the background one is still stuck
+        assertEquals(PRICE, CompletableFuture.supplyAsync(() ->
+                cache.get("AAPL", Priority.INTERACTIVE, ticker -> PRICE), executor).get(5, TimeUnit.SECONDS));
+        assertFalse(background.isDone());
+        assertEquals(0.0, count("joined"));
+
+        release.countDown();
+        assertEquals(BigDecimal.ONE, background.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void backgroundJoinsInteractiveLoad() throws Exception {
+        QuoteCache cache = new QuoteCache(registry, 60, 10);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<BigDecimal> interactive = CompletableFuture.supplyAsync(() ->
+                cache.get("AAPL", Priority.INTERACTIVE, ticker -> {
+                    await(release);
+                    return PRICE;
+                }), executor);
+        awaitInFlight(cache, "AAPL");
+
+        CompletableFuture<BigDecimal> background = CompletableFuture.supplyAsync(() ->
+                cache.get("AAPL", Priority.BACKGROUND, ticker -> {
+                    throw new AssertionError("should join the interactive load");
+                }), executor);
+        awaitCount("joined", 1);
+        release.countDown();
+
+        assertEquals(PRICE, interactive.get(5, TimeUnit.SECONDS));
+        assertEquals(PRICE, background.get(5, TimeUnit.SECONDS));
+    }
+
+    private double count(String result) {
+        return registry.get("cache.lookups").tag("result", result).counter().count();
+    }
+
+    private void awaitCount(String result, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (count(result) < expected) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for " + expected + " " + result);
+            Thread.sleep(1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void awaitInFlight(QuoteCache cache, String ticker) throws InterruptedException {
+        Map<String, ?> inFlight = (Map<String, ?>) ReflectionTestUtils.getField(cache, "inFlight");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!inFlight.containsKey(ticker)) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the load of " + ticker);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
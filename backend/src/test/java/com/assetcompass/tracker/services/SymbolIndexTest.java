@@ -0,0 +1,108 @@
+package com.assetcompass.tracker.services;
+
+import com.assetcompass.tracker.services.SymbolIndex.SymbolMatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Listing load, typeahead ranking, and when the index may answer without asking AlphaVantage.
+ */
+class SymbolIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private SymbolIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path listing = dir.resolve("listing.csv");
+        Files.writeString(listing, String.join("\n",
+                "symbol,name,exchange,assetType,ipoDate,delistingDate,status",
+                "AAPL,Apple Inc,NASDAQ,Stock,1980-12-12,null,Active",
+                "AA,Alcoa Corp,NYSE,Stock,2016-10-18,null,Active",
+                "AAP,Advance Auto Parts Inc,NYSE,Stock,2001-11-29,null,Active",
+                "AAPB,GraniteShares 2x Long AAPL Daily ETF,NASDAQ,ETF,2017-08-10,null,Active",
+                "APLE,Apple Hospitality REIT Inc,NYSE,Stock,2015-05-18,null,Active",
+                "OLD,Delisted Co,NYSE,Stock,1999-01-01,2010-01-01,Delisted",
+                ",No Symbol,NYSE,Stock,,,Active"));
+
+        index = new SymbolIndex(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(index, "listingFile", listing.toUri().toString());
+        ReflectionTestUtils.setField(index, "minLocalHits", 3);
+        ReflectionTestUtils.setField(index, "maxSearchedQueries", 2);
+        ReflectionTestUtils.setField(index, "searchedTtlHours", 24L);
+        index.loadListing();
+    }
+
+    @Test
+    void loadsActiveListingsOnly() {
+        assertEquals(5, index.size());
+        assertTrue(index.search("OLD", 10).isEmpty());
+        // "Stock" in the listing is "Equity" like in SYMBOL_SEARCH
+        assertEquals("Equity", index.search("AAPL", 1).get(0).type());
+        assertEquals("ETF", index.search("AAPB", 1).get(0).type());
+    }
+
+    @Test
+    void ranksExactSymbolThenShorterSymbolsThenNames() {
+        assertEquals(List.of("AAP", "AAPB", "AAPL"), symbols(index.search("aap", 10)));
+        assertEquals(List.of("AA", "AAP", "AAPB", "AAPL"), symbols(index.search(" AA ", 10)));
+
+        // Then any name word starting with the query
+        assertEquals(Set.of("AAPL", "APLE"), Set.copyOf(symbols(index.search("apple", 10))));
+        assertEquals(List.of("AAPB"), symbols(index.search("granite", 10)));
+    }
+
+    @Test
+    void respectsLimit() {
+        assertEquals(List.of("AA", "AAP"), symbols(index.search("A", 2)));
+        assertTrue(index.search("", 10).isEmpty());
+        assertTrue(index.search(null, 10).isEmpty());
+    }
+
+    @Test
+    void upstreamResultsAreMergedAndRemembered() {
+        assertFalse(index.canServeLocally("tesla", 0));
+        assertTrue(index.canServeLocally("tesla", 3));
+
+        index.addUpstreamResults("tesla", List.of(
+                new SymbolMatch("TSLA", "Tesla Inc", "Equity", "United States", "USD")));
+        assertEquals(List.of("TSLA"), symbols(index.search("TESLA", 10)));
+        // Asked once - the index is now as good as AlphaVantage for this query, however written
+        assertTrue(index.canServeLocally(" Tesla ", 1));
+    }
+
+    @Test
+    void rememberedQueriesAreBoundedAndExpire() throws InterruptedException {
+        index.addUpstreamResults("a", List.of());
+        index.addUpstreamResults("b", List.of());
+        index.canServeLocally("a", 0); // "b" is now the least recently asked
+        index.addUpstreamResults("c", List.of());
+
+        assertTrue(index.canServeLocally("a", 0));
+        assertFalse(index.canServeLocally("b", 0));
+        assertTrue(index.canServeLocally("c", 0));
+
+        ReflectionTestUtils.setField(index, "searchedTtlHours", 0L);
+        Thread.sleep(2);
+        assertFalse(index.canServeLocally("a", 0));
+    }
+
+    private static List<String> symbols(List<SymbolMatch> matches) {
+        return matches.stream().map(SymbolMatch::symbol).toList();
+    }
+}
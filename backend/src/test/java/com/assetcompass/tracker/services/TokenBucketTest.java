@@ -0,0 +1,55 @@
+package com.assetcompass.tracker.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts full, refills continuously up to capacity, and blocks only while empty.
+ */
+class TokenBucketTest {
+
+    @Test
+    void startsFullAndNeverExceedsCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(5, 1_000);
+        assertEquals(5, bucket.available(), 0.0001);
+
+        for (int i = 0; i < 5; i++) {
+            bucket.acquire();
+        }
+        assertTrue(bucket.available() < 1);
+
+        Thread.sleep(20);
+        assertEquals(5, bucket.available(), 0.0001);
+
+        // Refunds are capped too
+        bucket.refund();
+        assertEquals(5, bucket.available(), 0.0001);
+    }
+
+    @Test
+    void blocksUntilRefilled() throws InterruptedException {
+        // One token every 50ms
+        TokenBucket bucket = new TokenBucket(1, 20);
+        bucket.acquire();
+
+        long start = System.nanoTime();
+        bucket.acquire();
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(waitedMillis >= 40, "waited only " + waitedMillis + "ms");
+        assertTrue(waitedMillis < 1_000, "waited " + waitedMillis + "ms");
+    }
+
+    @Test
+    void refundGivesTheTokenBack() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 0.001);
+        bucket.acquire();
+        assertTrue(bucket.available() < 1);
+
+        bucket.refund();
+        assertTrue(bucket.available() >= 1);
+        bucket.acquire(); // Doesn't block
+    }
+}
@@ -0,0 +1,94 @@
+package com.assetcompass.tracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * FixedPoint must give exactly what the BigDecimal code it replaces gives, for every rounding mode.
+ */
+class FixedPointTest {
+
+    private static final RoundingMode[] MODES = {
+            RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN,
+            RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR};
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Test
+    void multiplyMatchesBigDecimal() {
+        for (int i = 0; i < 200_000; i++) {
+            long quantity = randomRaw(1_000_000_000_000_000L);
+            long price = randomRaw(100_000_000_000L);
+            RoundingMode mode = MODES[i % MODES.length];
+
+            BigDecimal expected = BigDecimal.valueOf(quantity, FixedPoint.QUANTITY_SCALE)
+                    .multiply(BigDecimal.valueOf(price, FixedPoint.PRICE_SCALE))
+                    .setScale(FixedPoint.VALUE_SCALE, mode);
+            assertMatches(expected, FixedPoint.VALUE_SCALE, () -> FixedPoint.multiply(quantity, FixedPoint.QUANTITY_SCALE,
+                    price, FixedPoint.PRICE_SCALE, FixedPoint.VALUE_SCALE, mode), quantity + " * " + price + " " + mode);
+        }
+    }
+
+    @Test
+    void divideMatchesBigDecimal() {
+        for (int i = 0; i < 200_000; i++) {
+            long amount = randomRaw(10_000_000_000L);
+            long divisor = randomRaw(100_000_000L);
+            if (divisor == 0) continue;
+            RoundingMode mode = MODES[i % MODES.length];
+
+            // Same shape as buyAsset: money (scale 2) / price (scale 4) -> shares (scale 10)
+            BigDecimal expected = BigDecimal.valueOf(amount, FixedPoint.MONEY_SCALE)
+                    .divide(BigDecimal.valueOf(divisor, FixedPoint.PRICE_SCALE), FixedPoint.QUANTITY_SCALE, mode);
+            assertMatches(expected, FixedPoint.QUANTITY_SCALE, () -> FixedPoint.divide(amount, FixedPoint.MONEY_SCALE,
+                    divisor, FixedPoint.PRICE_SCALE, FixedPoint.QUANTITY_SCALE, mode), amount + " / " + divisor + " " + mode);
+        }
+    }
+
+    @Test
+    void exactHalvesRoundLikeBigDecimal() {
+        // 0.5 cent: HALF_UP goes up, HALF_DOWN and HALF_EVEN stay (0 is even), for both signs
+        for (long raw : new long[]{5, -5, 15, -15, 25}) {
+            for (RoundingMode mode : MODES) {
+                BigDecimal expected = BigDecimal.valueOf(raw, 3).setScale(2, mode);
+                long actual = FixedPoint.rescale(raw, 3, 2, mode);
+                assertEquals(expected, FixedPoint.toDecimal(actual, 2), raw + " " + mode);
+            }
+        }
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(Long.MAX_VALUE / 2, 0, 3, 0, 0, RoundingMode.HALF_UP));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.divide(Long.MAX_VALUE, 0, 1, 0, 2, RoundingMode.HALF_UP));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.divide(1, 0, 0, 0, 0, RoundingMode.HALF_UP));
+    }
+
+    // Equal to BigDecimal's answer, or an ArithmeticException when that answer doesn't fit in a long
+    private static void assertMatches(BigDecimal expected, int scale, LongSupplier actual, String message) {
+        if (expected.unscaledValue().bitLength() > 63) {
+            assertThrows(ArithmeticException.class, actual::getAsLong, message);
+        } else {
+            assertEquals(expected, FixedPoint.toDecimal(actual.getAsLong(), scale), message);
+        }
+    }
+
+    // Mix of tiny, typical and huge magnitudes, both signs
+    private long randomRaw(long max) {
+        long bound = switch (random.nextInt(3)) {
+            case 0 -> 1_000;
+            case 1 -> (long) Math.sqrt(max);
+            default -> max;
+        };
+        long value = random.nextLong(bound);
+        return random.nextInt(8) == 0 ? -value : value;
+    }
+}
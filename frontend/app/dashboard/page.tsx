@@ -43,6 +43,53 @@ export default function Dashboard() {
     fetchData();
   }, []);
 
+  // Live prices + net worth pushed by the server (SSE over fetch, so the JWT can go in a header)
+  const heldTickers = Array.from(new Set(assets.map((a) => a.ticker.toUpperCase()))).sort().join(',');
+  useEffect(() => {
+    const token = localStorage.getItem('token');
+    if (!token || !heldTickers) return;
+
+    const controller = new AbortController();
+    const listen = async () => {
+      const res = await fetch(`${process.env.NEXT_PUBLIC_API_URL || 'https://asset-compass-production.up.railway.app'}/api/stream/prices`, {
+        headers: { Authorization: `Bearer ${token}`, Accept: 'text/event-stream' },
+        signal: controller.signal,
+      });
+      if (!res.ok || !res.body) return;
+
+      const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+      let buffer = '';
+      while (true) {
+        const { value, done } = await reader.read();
+        if (done) break;
+        buffer += value;
+
+        // Events are separated by a blank line: "event: <name>\ndata: <json>"
+        let split;
+        while ((split = buffer.indexOf('\n\n')) >= 0) {
+          const raw = buffer.slice(0, split);
+          buffer = buffer.slice(split + 2);
+          const name = raw.match(/^event:(.*)$/m)?.[1]?.trim();
+          const data = raw.match(/^data:(.*)$/m)?.[1];
+          if (!name || !data) continue;
+
+          const payload = JSON.parse(data);
+          if (name === 'price') {
+            setAssets((prev) => prev.map((a) =>
+              a.ticker.toUpperCase() === payload.ticker ? { ...a, buyPrice: payload.price, lastUpdated: payload.at } : a
+            ));
+          } else if (name === 'networth') {
+            setUser((prev) => (prev ? { ...prev, netWorthZAR: payload.netWorthZAR } : prev));
+          }
+        }
+      }
+    };
+    listen().catch((err) => {
+      if (err.name !== 'AbortError') console.error('Price stream closed', err);
+    });
+    return () => controller.abort();
+  }, [heldTickers]);
+
   const fetchData = async () => {
     const token = localStorage.getItem('token');
     if (!token) {
@@ -59,14 +106,20 @@ export default function Dashboard() {
       const userData = await userRes.json();
       setUser(userData);
 
-      const assetRes = await fetch(`${process.env.NEXT_PUBLIC_API_URL || 'https://asset-compass-production.up.railway.app'}/api/assets`, {
-        headers: { Authorization: `Bearer ${token}` },
-      });
+      // Assets come in pages - keep following the X-Next-Cursor header until there are no more
+      const allAssets: Asset[] = [];
+      let cursor: string | null = null;
+      do {
+        const assetRes: Response = await fetch(`${process.env.NEXT_PUBLIC_API_URL || 'https://asset-compass-production.up.railway.app'}/api/assets?limit=500${cursor ? `&cursor=${cursor}` : ''}`, {
+          headers: { Authorization: `Bearer ${token}` },
+        });
+        if (!assetRes.ok) break;
 
-      if (assetRes.ok) {
-        const assetData = await assetRes.json();
-        setAssets(assetData);
-      }
+        allAssets.push(...await assetRes.json());
+        cursor = assetRes.headers.get('X-Next-Cursor');
+      } while (cursor);
+
+      setAssets(allAssets);
     } catch (err) {
       console.error(err);
       localStorage.removeItem('token');